@@ -19,3 +19,21 @@
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
 #-renamesourcefileattribute SourceFile
+
+# Keep line numbers for crash reports from minified builds
+-keepattributes SourceFile,LineNumberTable
+-renamesourcefileattribute SourceFile
+
+# ViewModelProvider.NewInstanceFactory creates BooksViewModel reflectively
+-keepclassmembers class * extends androidx.lifecycle.ViewModel {
+    <init>();
+}
+
+# OkHttp, pulled in by Picasso, probes for optional platform classes
+-dontwarn okhttp3.internal.platform.**
+-dontwarn org.conscrypt.**
+-dontwarn org.bouncycastle.**
+-dontwarn org.openjsse.**
+-dontwarn okio.**
+-dontwarn javax.annotation.**
+-dontwarn org.codehaus.mojo.animal_sniffer.*
@@ -0,0 +1,127 @@
+package com.example.booklistingapp;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+//Rows bound after each kind of update, on a RecyclerView laid out by hand at a phone's size. Range notifications
+//should only bind the rows that change on screen, where notifyDataSetChanged rebinds every visible one.
+@RunWith(AndroidJUnit4.class)
+public class AdapterUpdatesTest {
+    private static final int WIDTH_PX = 1080;
+    private static final int HEIGHT_PX = 1920;
+
+    private Context context;
+    private RecyclerView recyclerView;
+    private CountingAdapter adapter;
+
+    private static class CountingAdapter extends BooksAdapter {
+        int binds;
+
+        CountingAdapter(List<Book> books, RecyclerView recyclerView) {
+            super(books, recyclerView);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder viewHolder, int position) {
+            binds++;
+            super.onBindViewHolder(viewHolder, position);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        BookTextPrecomputer.init(context);
+    }
+
+    @Test
+    @UiThreadTest
+    public void appendingAPage_bindsNoVisibleRow() {
+        show(books(0, 40));
+        int visible = recyclerView.getChildCount();
+        assertTrue(visible > 0);
+        assertEquals(visible, adapter.binds);
+
+        adapter.binds = 0;
+        adapter.addItems(books(40, 40));
+        layout();
+
+        assertEquals(0, adapter.binds);
+        assertEquals(80, adapter.getItemCount());
+    }
+
+    @Test
+    @UiThreadTest
+    public void progressRow_bindsOnlyItself() {
+        show(books(0, 3));
+
+        adapter.binds = 0;
+        adapter.addItem(null);
+        layout();
+        assertEquals(1, adapter.binds);
+
+        adapter.binds = 0;
+        adapter.removeLastItem();
+        adapter.addItems(books(3, 2));
+        layout();
+        assertEquals(2, adapter.binds);
+    }
+
+    @Test
+    @UiThreadTest
+    public void dataSetChanged_rebindsEveryVisibleRow() {
+        show(books(0, 40));
+        int visible = recyclerView.getChildCount();
+
+        adapter.binds = 0;
+        adapter.notifyDataSetChanged();
+        layout();
+
+        assertEquals(visible, adapter.binds);
+    }
+
+    private void show(List<Book> books) {
+        recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(new LinearLayoutManager(context));
+        //no animations: their pre-layout pass would bind rows that only move
+        recyclerView.setItemAnimator(null);
+        adapter = new CountingAdapter(new ArrayList<>(books), recyclerView);
+        recyclerView.setAdapter(adapter);
+        layout();
+    }
+
+    private void layout() {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH_PX, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT_PX, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH_PX, HEIGHT_PX);
+    }
+
+    //count books without thumbnails numbered from first, binding them starts no image load
+    private static List<Book> books(int first, int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            List<String> authors = new ArrayList<>();
+            authors.add("Author " + i);
+            books.add(new Book("id" + i, "Title " + i, authors, "Description " + i, BookDate.of(2000, 1, 1), 100 + i,
+                    ""));
+        }
+        BookTextPrecomputer.precompute(books);
+        return books;
+    }
+}
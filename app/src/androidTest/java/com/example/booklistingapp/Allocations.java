@@ -0,0 +1,44 @@
+package com.example.booklistingapp;
+
+import android.os.Bundle;
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+//Objects allocated per op, reported next to the timings of BenchmarkRule which only measures time
+class Allocations {
+    private static final String TAG = "Benchmark";
+    private static final int WARMUP_OPS = 20;
+    private static final int MEASURED_OPS = 100;
+
+    interface Op {
+        void run() throws Exception;
+    }
+
+    @SuppressWarnings("deprecation")
+    static long report(String name, Op op) throws Exception {
+        for (int i = 0; i < WARMUP_OPS; i++) {
+            op.run();
+        }
+        Debug.resetThreadAllocCount();
+        Debug.resetThreadAllocSize();
+        Debug.startAllocCounting();
+        try {
+            for (int i = 0; i < MEASURED_OPS; i++) {
+                op.run();
+            }
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        long count = Debug.getThreadAllocCount() / MEASURED_OPS;
+        long size = Debug.getThreadAllocSize() / MEASURED_OPS;
+
+        Log.i(TAG, name + " allocations/op=" + count + " bytes/op=" + size);
+        Bundle status = new Bundle();
+        status.putLong(name + "_allocationsPerOp", count);
+        status.putLong(name + "_bytesPerOp", size);
+        InstrumentationRegistry.getInstrumentation().sendStatus(2, status);
+        return count;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.booklistingapp;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//Marks the BenchmarkRule classes. BenchmarkRule fails on a debuggable build or an emulator, so app/build.gradle
+//leaves these out of a plain connectedAndroidTest and runs only these with -Pbenchmark.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface BenchmarkTest {
+}
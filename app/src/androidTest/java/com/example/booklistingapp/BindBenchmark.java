@@ -0,0 +1,151 @@
+package com.example.booklistingapp;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+//onBindViewHolder, and measure and layout, for rows of the 40 book fixture, cycling through the books like a scroll does
+@BenchmarkTest
+@RunWith(AndroidJUnit4.class)
+public class BindBenchmark {
+    private static final int ROW_WIDTH_PX = 1080;
+    // A bind of a row seen before only hands prebuilt text to the views. What it still allocates comes from
+    // TextViewCompat.setPrecomputedText, which copies the view's text metrics params (a TextPaint and its wrappers)
+    // to check them against the text's, for the title and the description. Formatting any of the row's text, or
+    // loading the placeholder drawable again, goes past this.
+    static final long MAX_ALLOCATIONS_PER_BIND = 16;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @Test
+    @UiThreadTest
+    public void bindBookRow() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        BookTextPrecomputer.init(context);
+        ArrayList<Book> books = booksWithoutThumbnails();
+        BookTextPrecomputer.precompute(books);
+
+        RecyclerView recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(new LinearLayoutManager(context));
+        final BooksAdapter adapter = new BooksAdapter(books, recyclerView);
+        final RecyclerView.ViewHolder holder = adapter.onCreateViewHolder(new FrameLayout(context), adapter.getItemViewType(0));
+        final int count = books.size();
+
+        BenchmarkState state = benchmarkRule.getState();
+        int position = 0;
+        while (state.keepRunning()) {
+            adapter.onBindViewHolder(holder, position);
+            position = (position + 1) % count;
+        }
+        Allocations.report("bindBookRow", new Allocations.Op() {
+            private int position;
+
+            @Override
+            public void run() {
+                adapter.onBindViewHolder(holder, position);
+                position = (position + 1) % count;
+            }
+        });
+    }
+
+    //Row text is formatted when a Book is built, so a bind allocates little, and less than building the row's Book
+    @Test
+    @UiThreadTest
+    public void bindBookRow_allocatesLessThanFormattingTheRow() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        BookTextPrecomputer.init(context);
+        final ArrayList<Book> books = booksWithoutThumbnails();
+        BookTextPrecomputer.precompute(books);
+
+        RecyclerView recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(new LinearLayoutManager(context));
+        final BooksAdapter adapter = new BooksAdapter(books, recyclerView);
+        final RecyclerView.ViewHolder holder = adapter.onCreateViewHolder(new FrameLayout(context), BooksAdapter.VIEW_ITEM);
+        final int count = books.size();
+        //every row once, so only binds of rows already seen are measured
+        for (int position = 0; position < count; position++) {
+            adapter.onBindViewHolder(holder, position);
+        }
+
+        long bind = Allocations.report("bindBookRow_compare", new Allocations.Op() {
+            private int position;
+
+            @Override
+            public void run() {
+                adapter.onBindViewHolder(holder, position);
+                position = (position + 1) % count;
+            }
+        });
+        long format = Allocations.report("formatBookRow_compare", new Allocations.Op() {
+            private int position;
+
+            @Override
+            public void run() {
+                Book book = books.get(position);
+                new Book(book.getId(), book.getTitle(), book.getAuthors(), book.getDescription(),
+                        book.getPublishedDate(), book.getPageCount(), book.getImageURL());
+                position = (position + 1) % count;
+            }
+        });
+        assertTrue("bind " + bind + " vs format " + format + " allocations", bind < format);
+        assertTrue("bind " + bind + " allocations", bind <= MAX_ALLOCATIONS_PER_BIND);
+    }
+
+    //Measure and layout of a bound row at a phone's width, what each row costs when it scrolls in
+    @Test
+    @UiThreadTest
+    public void measureAndLayoutBookRow() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        BookTextPrecomputer.init(context);
+        ArrayList<Book> books = booksWithoutThumbnails();
+        BookTextPrecomputer.precompute(books);
+
+        RecyclerView recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(new LinearLayoutManager(context));
+        BooksAdapter adapter = new BooksAdapter(books, recyclerView);
+        RecyclerView.ViewHolder holder = adapter.onCreateViewHolder(new FrameLayout(context), BooksAdapter.VIEW_ITEM);
+        View row = holder.itemView;
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(ROW_WIDTH_PX, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        int count = books.size();
+
+        BenchmarkState state = benchmarkRule.getState();
+        int position = 0;
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            adapter.onBindViewHolder(holder, position);
+            position = (position + 1) % count;
+            state.resumeTiming();
+            row.forceLayout();
+            row.measure(widthSpec, heightSpec);
+            row.layout(0, 0, row.getMeasuredWidth(), row.getMeasuredHeight());
+        }
+    }
+
+    //no thumbnails: a bind would start a network load and the timings would depend on it
+    private static ArrayList<Book> booksWithoutThumbnails() {
+        ArrayList<Book> books = new ArrayList<>();
+        for (Book book : Fixtures.books(Fixtures.VOLUMES_40)) {
+            books.add(new Book(book.getId(), book.getTitle(), book.getAuthors(), book.getDescription(),
+                    book.getPublishedDate(), book.getPageCount(), ""));
+        }
+        return books;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.booklistingapp;
+
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+//Storing a downloaded page and searching offline with 10k and 100k books already stored. Saving runs on the
+//store's writer thread, so its cost is kept off the request but still bounds how fast pages can be stored.
+@BenchmarkTest
+@RunWith(AndroidJUnit4.class)
+public class BookStoreBenchmark {
+    private static final int PAGE = 40;
+    private static final int BATCH = 1000;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final Random random = new Random(42);
+    private BookStore store;
+    private int nextId;
+
+    @After
+    public void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    public void savePage_10k() {
+        savePage(10000);
+    }
+
+    @Test
+    public void savePage_100k() {
+        savePage(100000);
+    }
+
+    @Test
+    public void search_10k() {
+        search(10000);
+    }
+
+    @Test
+    public void search_100k() {
+        search(100000);
+    }
+
+    private void savePage(int rows) {
+        fill(rows);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            List<Book> page = books(PAGE);
+            state.resumeTiming();
+            store.save(page);
+        }
+    }
+
+    private void search(int rows) {
+        fill(rows);
+        assertEquals(PAGE, store.search("title", 0, PAGE).size());
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            store.search("author " + random.nextInt(500), 0, PAGE);
+        }
+    }
+
+    //An in-memory store holding rows books, without the eviction limit of the app's store
+    private void fill(int rows) {
+        store = new BookStore(InstrumentationRegistry.getInstrumentation().getTargetContext(), null,
+                Integer.MAX_VALUE);
+        for (int stored = 0; stored < rows; stored += BATCH) {
+            store.save(books(Math.min(BATCH, rows - stored)));
+        }
+    }
+
+    private List<Book> books(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = nextId++;
+            List<String> authors = new ArrayList<>();
+            authors.add("Author " + random.nextInt(500));
+            books.add(new Book("id" + id, "Title " + id, authors, "Description of book " + id,
+                    BookDate.of(1900 + random.nextInt(120), 0, 0), random.nextInt(1200), ""));
+        }
+        return books;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.booklistingapp;
+
+import android.net.Uri;
+import android.view.inputmethod.EditorInfo;
+import android.widget.EditText;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+//Rotating the activity reattaches to the view model's books, nothing is fetched again
+@RunWith(AndroidJUnit4.class)
+public class BooksActivityRecreationTest {
+    private static final long TIMEOUT_MILLIS = 10000;
+    // Answers every page past the first, so the first load more ends the results
+    private static final byte[] NO_MORE_RESULTS = "{\"kind\": \"books#volumes\", \"totalItems\": 0}".getBytes();
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private BooksHttpClient originalClient;
+
+    @Before
+    public void setUp() {
+        originalClient = QueryUtils.getHttpClient();
+        BooksActivity.setNetworkCheck(Fixtures.ONLINE);
+        final byte[] page = Fixtures.bytes(Fixtures.VOLUMES_10_FIELDS);
+        QueryUtils.setHttpClient(new BooksHttpClient() {
+            @Override
+            public Response get(URL url, Map<String, String> headers, BookRequest request) throws IOException {
+                requests.incrementAndGet();
+                String startIndex = Uri.parse(url.toString()).getQueryParameter("startIndex");
+                byte[] body = startIndex == null || startIndex.equals("0") ? page : NO_MORE_RESULTS;
+                return new Response(200, Collections.<String, List<String>>emptyMap(), new ByteArrayInputStream(body));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        BooksActivity.setNetworkCheck(BooksActivity.ACTIVE_NETWORK);
+        QueryUtils.setHttpClient(originalClient);
+    }
+
+    @Test
+    public void recreate_keepsBooksWithoutRefetching() throws Exception {
+        try (ActivityScenario<BooksActivity> scenario = ActivityScenario.launch(BooksActivity.class)) {
+            scenario.onActivity(new ActivityScenario.ActivityAction<BooksActivity>() {
+                @Override
+                public void perform(BooksActivity activity) {
+                    EditText searchBar = activity.findViewById(R.id.search_bar);
+                    //unique terms, so the book cache can't answer the search
+                    searchBar.setText("recreation " + System.nanoTime());
+                    searchBar.onEditorAction(EditorInfo.IME_ACTION_SEARCH);
+                }
+            });
+            //no load more or progress row can change the list after this
+            int loaded = awaitAllDataLoaded(scenario);
+            int fetched = requests.get();
+            assertTrue(loaded > 0);
+            assertTrue(fetched > 0);
+
+            scenario.recreate();
+
+            assertEquals(loaded, itemCount(scenario));
+            assertEquals(fetched, requests.get());
+        }
+    }
+
+    //Waits for the first page and for a load more it started to end, then marks all data loaded so no further
+    //load more or progress row changes the list. Returns the rows shown once the main thread is idle.
+    private static int awaitAllDataLoaded(ActivityScenario<BooksActivity> scenario) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!markLoadedAllData(scenario)) {
+            assertTrue("no books loaded", System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        return itemCount(scenario);
+    }
+
+    private static boolean markLoadedAllData(ActivityScenario<BooksActivity> scenario) {
+        final boolean[] loadedAll = new boolean[1];
+        scenario.onActivity(new ActivityScenario.ActivityAction<BooksActivity>() {
+            @Override
+            public void perform(BooksActivity activity) {
+                BooksAdapter adapter = activity.adapter;
+                if (adapter.getItemCount() > 0 && !adapter.isLoadingMore()) {
+                    adapter.setIsLoadedAllData();
+                    loadedAll[0] = true;
+                }
+            }
+        });
+        return loadedAll[0];
+    }
+
+    private static int itemCount(ActivityScenario<BooksActivity> scenario) {
+        final int[] count = new int[1];
+        scenario.onActivity(new ActivityScenario.ActivityAction<BooksActivity>() {
+            @Override
+            public void perform(BooksActivity activity) {
+                RecyclerView recyclerView = activity.findViewById(R.id.recycle_view);
+                count[0] = recyclerView.getAdapter().getItemCount();
+            }
+        });
+        return count[0];
+    }
+}
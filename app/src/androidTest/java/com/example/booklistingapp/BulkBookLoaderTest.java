@@ -0,0 +1,119 @@
+package com.example.booklistingapp;
+
+import android.net.Uri;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+//Bulk loads against a local server that answers every page after PAGE_DELAY_MILLIS, or rate limits once it sees
+//more than a given number of concurrent requests
+@RunWith(AndroidJUnit4.class)
+public class BulkBookLoaderTest {
+    private static final long PAGE_DELAY_MILLIS = 300;
+    private static final int PAGES = 12;
+
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger peakConcurrent = new AtomicInteger();
+    private volatile int rateLimitAbove = Integer.MAX_VALUE;
+    private LocalBooksServer local;
+
+    @Before
+    public void setUp() throws IOException {
+        BulkBookLoader.reset();
+        QueryUtils.getCircuitBreaker().onSuccess();
+        local = new LocalBooksServer();
+        local.server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                int running = concurrent.incrementAndGet();
+                try {
+                    peakConcurrent.set(Math.max(peakConcurrent.get(), running));
+                    if (running > rateLimitAbove) {
+                        return new MockResponse().setResponseCode(429).setHeader("Retry-After", "1");
+                    }
+                    Thread.sleep(PAGE_DELAY_MILLIS);
+                    Uri uri = Uri.parse(request.getPath());
+                    return new MockResponse().setBody(page(Integer.parseInt(uri.getQueryParameter("startIndex")),
+                            Integer.parseInt(uri.getQueryParameter("maxResults"))));
+                } finally {
+                    concurrent.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        local.close();
+        QueryUtils.getCircuitBreaker().onSuccess();
+        BulkBookLoader.reset();
+    }
+
+    @Test
+    public void fastServer_rampsUpToMaxParallelism() {
+        long start = System.currentTimeMillis();
+        BookResult result = BulkBookLoader.load(unpagedUrl("scaling"), PAGES * BulkBookLoader.PAGE_SIZE, null);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(result.isLoaded());
+        assertEquals(PAGES * BulkBookLoader.PAGE_SIZE, result.getBooks().size());
+        assertEquals("id0", result.getBooks().get(0).getId());
+        assertEquals(BulkBookLoader.MAX_PARALLELISM, BulkBookLoader.getParallelism());
+        assertTrue("peak " + peakConcurrent.get(), peakConcurrent.get() > BulkBookLoader.INITIAL_PARALLELISM);
+        assertTrue("peak " + peakConcurrent.get(), peakConcurrent.get() <= BulkBookLoader.MAX_PARALLELISM);
+        //at INITIAL_PARALLELISM the whole load would take PAGES / 2 round trips
+        assertTrue("took " + elapsed + "ms", elapsed < PAGES / BulkBookLoader.INITIAL_PARALLELISM * PAGE_DELAY_MILLIS);
+    }
+
+    @Test
+    public void rateLimits_bringParallelismDown() {
+        rateLimitAbove = 1;
+        BookResult result = BulkBookLoader.load(unpagedUrl("rate limited"), PAGES * BulkBookLoader.PAGE_SIZE, null);
+
+        assertTrue(result.isLoaded());
+        assertTrue("parallelism " + BulkBookLoader.getParallelism(),
+                BulkBookLoader.getParallelism() < BulkBookLoader.MAX_PARALLELISM);
+        //pages after a failed one are dropped, so the books never have a gap
+        List<Book> books = result.getBooks();
+        for (int i = 0; i < books.size(); i++) {
+            assertEquals("id" + i, books.get(i).getId());
+        }
+        if (books.size() < PAGES * BulkBookLoader.PAGE_SIZE) {
+            assertEquals(books.size(), result.getNextStartIndex());
+        } else {
+            assertEquals(-1, result.getNextStartIndex());
+        }
+    }
+
+    private static String unpagedUrl(String query) {
+        return new BooksQuery.Builder(query + " " + System.nanoTime()).build().toUrlWithoutPaging();
+    }
+
+    //count volumes with ids and titles numbered from startIndex
+    private static String page(int startIndex, int count) {
+        StringBuilder json = new StringBuilder("{\"totalItems\": 1000, \"items\": [");
+        for (int i = startIndex; i < startIndex + count; i++) {
+            if (i > startIndex) {
+                json.append(',');
+            }
+            json.append("{\"id\": \"id").append(i).append("\", \"volumeInfo\": {\"title\": \"Title ").append(i)
+                    .append("\"}}");
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.booklistingapp;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+//Warm-up runs against a local server standing in for the Books API and the thumbnail host
+@RunWith(AndroidJUnit4.class)
+public class CacheWarmUpTest {
+    private static final long LARGE_BUDGET = 10 * 1024 * 1024;
+    private static final long TIME_LIMIT = 10 * 1000;
+
+    private final AtomicInteger volumeRequests = new AtomicInteger();
+    private final List<String> pinned = new ArrayList<>();
+    private Context context;
+    private MockWebServer server;
+    private BooksHttpClient originalClient;
+    private volatile long bodyDelayMillis;
+
+    @Before
+    public void setUp() throws IOException {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        server = new MockWebServer();
+        server.start();
+        //thumbnails point at the local server as well, it doesn't have them
+        final String volumes = Fixtures.string(Fixtures.VOLUMES_40_FIELDS)
+                .replace("http://books.google.com", server.url("/").toString().replaceAll("/$", ""));
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (!request.getPath().startsWith("/books/v1/volumes")) {
+                    return new MockResponse().setResponseCode(404);
+                }
+                volumeRequests.incrementAndGet();
+                return new MockResponse().setBody(volumes).setBodyDelay(bodyDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+
+        originalClient = QueryUtils.getHttpClient();
+        final BooksHttpClient local = new UrlConnectionHttpClient();
+        QueryUtils.setHttpClient(new BooksHttpClient() {
+            @Override
+            public Response get(URL url, Map<String, String> headers, BookRequest request) throws IOException {
+                URL localUrl = new URL(server.url(url.getFile()).toString());
+                return local.get(localUrl, headers, request);
+            }
+        });
+        BookCache.getInstance().install(context);
+        BookCache.getInstance().clear();
+        for (File page : BookCache.getInstance().listWarmPages()) {
+            page.delete();
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (String query : pinned) {
+            SearchHistory.get(context).setPinned(query, false);
+        }
+        QueryUtils.setHttpClient(originalClient);
+        BookCache.getInstance().clear();
+        server.shutdown();
+    }
+
+    private String pin(String query) {
+        String normalized = QueryMatcher.normalize(query + " " + System.nanoTime());
+        SearchHistory.get(context).setPinned(normalized, true);
+        pinned.add(normalized);
+        return normalized;
+    }
+
+    private static String firstPageUrl(String query, int pageSize) {
+        return new BooksQuery.Builder(query).maxResults(pageSize).build().toUrl();
+    }
+
+    @Test
+    public void warmedPage_answersTheFirstSearchWithoutTheNetwork() {
+        String query = pin("warm");
+        CacheWarmUp.Report report = new CacheWarmUp(context, LARGE_BUDGET, TIME_LIMIT).run();
+        assertTrue(report.getPages() >= 1);
+        assertTrue(report.getBytes() > 0);
+
+        //a cold start: nothing in memory, a search with a smaller page than the warmed one
+        BookCache.getInstance().clear();
+        int requestsBefore = volumeRequests.get();
+        int warmHitsBefore = BookCache.getInstance().getWarmHitCount();
+        BookResult result = QueryUtils.extractBooksFromURL(firstPageUrl(query, BooksQuery.MIN_PAGE_SIZE));
+
+        assertTrue(result.isLoaded());
+        assertEquals(BooksQuery.MIN_PAGE_SIZE, result.getBooks().size());
+        assertEquals(requestsBefore, volumeRequests.get());
+        assertEquals(warmHitsBefore + 1, BookCache.getInstance().getWarmHitCount());
+
+        //the next run finds the page gone and counts it as used
+        CacheWarmUp.Report next = new CacheWarmUp(context, LARGE_BUDGET, TIME_LIMIT).run();
+        assertTrue(next.getPreviousUsed() >= 1);
+    }
+
+    @Test
+    public void unreadableWarmedPage_isNotServedNorCountedAsUsed() throws IOException {
+        String query = pin("corrupt");
+        new CacheWarmUp(context, LARGE_BUDGET, TIME_LIMIT).run();
+        String url = firstPageUrl(query, BooksQuery.MAX_PAGE_SIZE);
+        try (FileOutputStream out = new FileOutputStream(BookCache.getInstance().warmPageFile(url))) {
+            out.write(new byte[]{1, 2, 3});
+        }
+
+        BookCache.getInstance().clear();
+        int warmHitsBefore = BookCache.getInstance().getWarmHitCount();
+        assertNull(BookCache.getInstance().get(url));
+        assertEquals(warmHitsBefore, BookCache.getInstance().getWarmHitCount());
+
+        CacheWarmUp.Report next = new CacheWarmUp(context, LARGE_BUDGET, TIME_LIMIT).run();
+        assertEquals(0, next.getPreviousUsed());
+    }
+
+    @Test
+    public void warmedPage_isNotServedToTheSameQueryWithOtherFilters() {
+        String query = pin("filtered");
+        new CacheWarmUp(context, LARGE_BUDGET, TIME_LIMIT).run();
+
+        BookCache.getInstance().clear();
+        int requestsBefore = volumeRequests.get();
+        int warmHitsBefore = BookCache.getInstance().getWarmHitCount();
+        String newest = new BooksQuery.Builder(query).maxResults(BooksQuery.MIN_PAGE_SIZE)
+                .orderBy(BooksQuery.OrderBy.NEWEST).build().toUrl();
+        String magazines = new BooksQuery.Builder(query).maxResults(BooksQuery.MIN_PAGE_SIZE)
+                .printType(BooksQuery.PrintType.MAGAZINES).build().toUrl();
+        String fullVolumes = new BooksQuery.Builder(query).maxResults(BooksQuery.MIN_PAGE_SIZE)
+                .fields(null).build().toUrl();
+
+        assertNotEquals(BookCache.keyFor(firstPageUrl(query, BooksQuery.MIN_PAGE_SIZE)), BookCache.keyFor(newest));
+        assertNotEquals(BookCache.keyFor(newest), BookCache.keyFor(magazines));
+        assertTrue(QueryUtils.extractBooksFromURL(newest).isLoaded());
+        assertTrue(QueryUtils.extractBooksFromURL(magazines).isLoaded());
+        assertTrue(QueryUtils.extractBooksFromURL(fullVolumes).isLoaded());
+        assertEquals(requestsBefore + 3, volumeRequests.get());
+        assertEquals(warmHitsBefore, BookCache.getInstance().getWarmHitCount());
+    }
+
+    @Test
+    public void byteBudget_stopsBeforeTheNextQuery() {
+        pin("first");
+        pin("second");
+        pin("third");
+
+        CacheWarmUp.Report report = new CacheWarmUp(context, 1, TIME_LIMIT).run();
+
+        assertTrue(report.isOverBudget());
+        assertEquals(1, report.getPages());
+        assertEquals(1, volumeRequests.get());
+    }
+
+    @Test
+    public void timeLimit_abortsTheRunningFetch() {
+        pin("slow");
+        bodyDelayMillis = 5000;
+
+        long start = System.currentTimeMillis();
+        CacheWarmUp.Report report = new CacheWarmUp(context, LARGE_BUDGET, 200).run();
+
+        assertTrue(report.isStopped());
+        assertEquals(0, report.getPages());
+        assertTrue(System.currentTimeMillis() - start < bodyDelayMillis);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.booklistingapp;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import android.util.Log;
+
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+//BookCodec against the two usual ways of saving the list: JSON, and a Parcel written field by field as a
+//Parcelable Book would. Each benchmark is an encode and decode of the 40 volume page, sizes are logged.
+@BenchmarkTest
+@RunWith(AndroidJUnit4.class)
+public class CodecBenchmark {
+    private static final String TAG = "Benchmark";
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private List<Book> books;
+
+    @Before
+    public void setUp() {
+        books = Fixtures.books(Fixtures.VOLUMES_40);
+    }
+
+    @Test
+    public void sizes() throws Exception {
+        int codec = BookCodec.encode(books).length;
+        int json = toJson(books).getBytes("UTF-8").length;
+        Parcel parcel = Parcel.obtain();
+        writeParcel(books, parcel);
+        int parcelled = parcel.dataSize();
+        parcel.recycle();
+
+        Log.i(TAG, "page of 40: codec=" + codec + " bytes, json=" + json + " bytes, parcel=" + parcelled + " bytes");
+        Bundle status = new Bundle();
+        status.putInt("codec_bytes", codec);
+        status.putInt("json_bytes", json);
+        status.putInt("parcel_bytes", parcelled);
+        InstrumentationRegistry.getInstrumentation().sendStatus(2, status);
+        assertTrue(codec < json);
+        assertTrue(codec < parcelled);
+    }
+
+    @Test
+    public void codec_40() throws Exception {
+        assertSameBooks(BookCodec.decode(BookCodec.encode(books)));
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            BookCodec.decode(BookCodec.encode(books));
+        }
+    }
+
+    @Test
+    public void json_40() throws Exception {
+        assertSameBooks(fromJson(toJson(books)));
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            fromJson(toJson(books));
+        }
+    }
+
+    @Test
+    public void parcel_40() {
+        assertSameBooks(parcelRoundTrip(books));
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            parcelRoundTrip(books);
+        }
+    }
+
+    private void assertSameBooks(List<Book> decoded) {
+        assertEquals(books.size(), decoded.size());
+        for (int i = 0; i < books.size(); i++) {
+            assertTrue(decoded.get(i).hasSameContents(books.get(i)));
+        }
+    }
+
+    private static String toJson(List<Book> books) throws JSONException {
+        JSONArray array = new JSONArray();
+        for (Book book : books) {
+            JSONObject object = new JSONObject();
+            object.put("id", book.getId());
+            object.put("title", book.getTitle());
+            if (book.getAuthors() != null) {
+                object.put("authors", new JSONArray(book.getAuthors()));
+            }
+            object.put("description", book.getDescription());
+            object.put("publishedDate", book.getPublishedDate());
+            object.put("pageCount", book.getPageCount());
+            object.put("imageURL", book.getImageURL());
+            array.put(object);
+        }
+        return array.toString();
+    }
+
+    private static List<Book> fromJson(String json) throws JSONException {
+        JSONArray array = new JSONArray(json);
+        List<Book> books = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject object = array.getJSONObject(i);
+            List<String> authors = null;
+            JSONArray authorArray = object.optJSONArray("authors");
+            if (authorArray != null) {
+                authors = new ArrayList<>(authorArray.length());
+                for (int j = 0; j < authorArray.length(); j++) {
+                    authors.add(authorArray.getString(j));
+                }
+            }
+            books.add(new Book(object.optString("id", null), object.getString("title"), authors,
+                    object.getString("description"), object.getInt("publishedDate"), object.getInt("pageCount"),
+                    object.getString("imageURL")));
+        }
+        return books;
+    }
+
+    private static List<Book> parcelRoundTrip(List<Book> books) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            writeParcel(books, parcel);
+            byte[] data = parcel.marshall();
+            parcel.recycle();
+            parcel = Parcel.obtain();
+            parcel.unmarshall(data, 0, data.length);
+            parcel.setDataPosition(0);
+            return readParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static void writeParcel(List<Book> books, Parcel parcel) {
+        parcel.writeInt(books.size());
+        for (Book book : books) {
+            parcel.writeString(book.getId());
+            parcel.writeString(book.getTitle());
+            parcel.writeStringList(book.getAuthors());
+            parcel.writeString(book.getDescription());
+            parcel.writeInt(book.getPublishedDate());
+            parcel.writeInt(book.getPageCount());
+            parcel.writeString(book.getImageURL());
+        }
+    }
+
+    private static List<Book> readParcel(Parcel parcel) {
+        int count = parcel.readInt();
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(new Book(parcel.readString(), parcel.readString(), parcel.createStringArrayList(),
+                    parcel.readString(), parcel.readInt(), parcel.readInt(), parcel.readString()));
+        }
+        return books;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.booklistingapp;
+
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+//Date parsing and formatting, and the author line, which run for every book of every page.
+//The simpleDateFormat_ benchmarks are the formatter-per-call code BookDate replaced, kept to show the difference.
+@BenchmarkTest
+@RunWith(AndroidJUnit4.class)
+public class DateBenchmark {
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void parseDate() throws Exception {
+        assertNotEquals(BookDate.NONE, BookDate.parse("2004-05-10"));
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            BookDate.parse("2004-05-10");
+        }
+        Allocations.report("parseDate", new Allocations.Op() {
+            @Override
+            public void run() {
+                BookDate.parse("2004-05-10");
+            }
+        });
+    }
+
+    @Test
+    public void simpleDateFormat_parseDate() throws Exception {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            new SimpleDateFormat("yyyy-MM-dd").parse("2004-05-10");
+        }
+        Allocations.report("simpleDateFormat_parseDate", new Allocations.Op() {
+            @Override
+            public void run() throws Exception {
+                new SimpleDateFormat("yyyy-MM-dd").parse("2004-05-10");
+            }
+        });
+    }
+
+    @Test
+    public void dateToString() throws Exception {
+        final int date = BookDate.parse("2004-05-10");
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            BookDate.format(date);
+        }
+        Allocations.report("dateToString", new Allocations.Op() {
+            @Override
+            public void run() {
+                BookDate.format(date);
+            }
+        });
+    }
+
+    @Test
+    public void simpleDateFormat_dateToString() throws Exception {
+        final Date date = new SimpleDateFormat("yyyy-MM-dd").parse("2004-05-10");
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            new SimpleDateFormat("dd/MM/yyyy").format(date);
+        }
+        Allocations.report("simpleDateFormat_dateToString", new Allocations.Op() {
+            @Override
+            public void run() {
+                new SimpleDateFormat("dd/MM/yyyy").format(date);
+            }
+        });
+    }
+
+    @Test
+    public void joinAuthors() throws Exception {
+        final List<String> authors = Arrays.asList("Neil Gaiman", "Terry Pratchett", "Ursula K. Le Guin");
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            Book.joinAuthors(authors);
+        }
+        Allocations.report("joinAuthors", new Allocations.Op() {
+            @Override
+            public void run() {
+                Book.joinAuthors(authors);
+            }
+        });
+    }
+}
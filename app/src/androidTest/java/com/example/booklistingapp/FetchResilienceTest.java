@@ -0,0 +1,167 @@
+package com.example.booklistingapp;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+
+import static org.junit.Assert.*;
+
+//Retry, Retry-After and the circuit breaker against a local server injecting failures
+@RunWith(AndroidJUnit4.class)
+public class FetchResilienceTest {
+    private LocalBooksServer local;
+    private String volumes;
+
+    @Before
+    public void setUp() throws IOException {
+        local = new LocalBooksServer();
+        volumes = Fixtures.string(Fixtures.VOLUMES_10_FIELDS);
+        QueryUtils.getCircuitBreaker().onSuccess();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        local.close();
+        QueryUtils.getCircuitBreaker().onSuccess();
+    }
+
+    @Test
+    public void transientServerErrors_areRetried() {
+        local.server.enqueue(new MockResponse().setResponseCode(503));
+        local.server.enqueue(new MockResponse().setResponseCode(503));
+        local.server.enqueue(new MockResponse().setBody(volumes));
+
+        BookResult result = QueryUtils.extractBooksFromURL(LocalBooksServer.uniqueUrl("retry"));
+
+        assertTrue(result.isLoaded());
+        assertEquals(3, local.server.getRequestCount());
+    }
+
+    @Test
+    public void rateLimited_waitsOutRetryAfter() {
+        local.server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+        local.server.enqueue(new MockResponse().setBody(volumes));
+
+        long start = System.currentTimeMillis();
+        BookResult result = QueryUtils.extractBooksFromURL(LocalBooksServer.uniqueUrl("rate limited"));
+
+        assertTrue(result.isLoaded());
+        assertTrue(System.currentTimeMillis() - start >= 1000);
+    }
+
+    @Test
+    public void rateLimitedWithoutRetryAfter_isRetried() {
+        local.server.enqueue(new MockResponse().setResponseCode(429));
+        local.server.enqueue(new MockResponse().setBody(volumes));
+
+        BookResult result = QueryUtils.extractBooksFromURL(LocalBooksServer.uniqueUrl("bare rate limit"));
+
+        assertTrue(result.isLoaded());
+        assertEquals(2, local.server.getRequestCount());
+        assertFalse(QueryUtils.getCircuitBreaker().isOpen());
+    }
+
+    @Test
+    public void clientError_isNotRetried() {
+        local.server.enqueue(new MockResponse().setResponseCode(400));
+
+        BookResult result = QueryUtils.extractBooksFromURL(LocalBooksServer.uniqueUrl("bad request"));
+
+        assertFalse(result.isLoaded());
+        assertFalse(result.isRetryable());
+        assertEquals(1, local.server.getRequestCount());
+    }
+
+    @Test
+    public void malformedBody_isNotRetried() {
+        local.server.enqueue(new MockResponse().setBody("{\"kind\" \"books#volumes\"}"));
+        local.server.enqueue(new MockResponse().setBody(volumes));
+
+        BookResult result = QueryUtils.extractBooksFromURL(LocalBooksServer.uniqueUrl("malformed"));
+
+        assertFalse(result.isLoaded());
+        assertFalse(result.isRetryable());
+        assertEquals(1, local.server.getRequestCount());
+    }
+
+    @Test
+    public void outage_opensTheCircuitAndStopsRequests() {
+        for (int i = 0; i < 10; i++) {
+            local.server.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+        //three attempts, then two more reach the threshold of five failures
+        assertFalse(QueryUtils.extractBooksFromURL(LocalBooksServer.uniqueUrl("outage")).isLoaded());
+        assertFalse(QueryUtils.extractBooksFromURL(LocalBooksServer.uniqueUrl("outage")).isLoaded());
+        int sent = local.server.getRequestCount();
+        assertEquals(5, sent);
+        assertTrue(QueryUtils.getCircuitBreaker().isOpen());
+
+        BookResult result = QueryUtils.extractBooksFromURL(LocalBooksServer.uniqueUrl("outage"));
+        assertFalse(result.isLoaded());
+        assertEquals(sent, local.server.getRequestCount());
+    }
+
+    @Test
+    public void cancelledTrial_letsTheNextRequestThrough() throws Exception {
+        //open for a millisecond, so the next request is the half-open trial
+        QueryUtils.getCircuitBreaker().onRateLimited(1);
+        Thread.sleep(10);
+        local.server.enqueue(new MockResponse().setBody(volumes).setBodyDelay(10, TimeUnit.SECONDS));
+
+        final String url = LocalBooksServer.uniqueUrl("trial");
+        final BookRequest request = new BookRequest(url, 0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<BookResult> trial = executor.submit(new Callable<BookResult>() {
+            @Override
+            public BookResult call() {
+                return QueryUtils.extractBooksFromURL(url, request);
+            }
+        });
+        assertNotNull(local.server.takeRequest(5, TimeUnit.SECONDS));
+        request.cancel();
+        assertFalse(trial.get(5, TimeUnit.SECONDS).isLoaded());
+        executor.shutdown();
+
+        local.server.enqueue(new MockResponse().setBody(volumes));
+        assertTrue(QueryUtils.extractBooksFromURL(LocalBooksServer.uniqueUrl("after trial")).isLoaded());
+    }
+
+    @Test
+    public void staleRefreshes_revalidateOnceAndSkipTheDiskCache() throws Exception {
+        local.server.enqueue(new MockResponse().setBody(volumes).setBodyDelay(1, TimeUnit.SECONDS));
+
+        final String url = LocalBooksServer.uniqueUrl("stale");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<BookResult>> refreshes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            refreshes.add(executor.submit(new Callable<BookResult>() {
+                @Override
+                public BookResult call() {
+                    return QueryUtils.refreshPage(url);
+                }
+            }));
+        }
+        for (Future<BookResult> refresh : refreshes) {
+            assertTrue(refresh.get(5, TimeUnit.SECONDS).isLoaded());
+        }
+        executor.shutdown();
+
+        assertEquals(1, local.server.getRequestCount());
+        assertEquals("no-cache", local.server.takeRequest().getHeader("Cache-Control"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.booklistingapp;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+//Google Books responses checked in under androidTest/assets. The _fields ones are the same volumes as
+//the partial response for BooksQuery.VOLUME_FIELDS, the others are full volumes.
+class Fixtures {
+    static final String VOLUMES_10 = "volumes_10.json";
+    static final String VOLUMES_40 = "volumes_40.json";
+    static final String VOLUMES_10_FIELDS = "volumes_10_fields.json";
+    static final String VOLUMES_40_FIELDS = "volumes_40_fields.json";
+
+    // For activity tests whose responses are served locally, searches shouldn't depend on the device being online
+    static final BooksActivity.NetworkCheck ONLINE = new BooksActivity.NetworkCheck() {
+        @Override
+        public boolean isNetworkAvailable(Context context) {
+            return true;
+        }
+    };
+
+    //volumes_40_fields.json -> volumes_40_fields
+    static String name(String fixture) {
+        return fixture.substring(0, fixture.lastIndexOf('.'));
+    }
+
+    static byte[] bytes(String name) {
+        try (InputStream in = InstrumentationRegistry.getInstrumentation().getContext().getAssets().open(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Missing fixture " + name, e);
+        }
+    }
+
+    static String string(String name) {
+        try {
+            return new String(bytes(name), "UTF-8");
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    static ArrayList<Book> books(String name) {
+        return QueryUtils.parseJSONData(string(name));
+    }
+}
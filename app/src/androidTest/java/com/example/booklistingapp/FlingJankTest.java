@@ -0,0 +1,196 @@
+package com.example.booklistingapp;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.inputmethod.EditorInfo;
+import android.widget.EditText;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+
+//Scripted flings through the results, measuring the interval of every frame drawn while they run. The frame time
+//percentiles and the frames over budget are logged and sent as instrumentation status, plus row layout times
+//from Metrics in debug builds. Compare them between builds on the same device, run with -Pbenchmark for release code.
+@RunWith(AndroidJUnit4.class)
+public class FlingJankTest {
+    private static final String TAG = "FlingJankTest";
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final int FLINGS = 6;
+    private static final int FLING_VELOCITY = 8000;
+    private static final long FRAME_BUDGET_NANOS = 1000000000L / 60;
+
+    private BooksHttpClient originalClient;
+
+    //Intervals between the frames of the main thread's Choreographer, from start to stop
+    private static class FrameRecorder implements Choreographer.FrameCallback {
+        final List<Long> intervals = new ArrayList<>();
+        private long lastFrameNanos;
+        private boolean running;
+
+        void start() {
+            running = true;
+            lastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void stop() {
+            running = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!running) {
+                return;
+            }
+            if (lastFrameNanos != 0) {
+                intervals.add(frameTimeNanos - lastFrameNanos);
+            }
+            lastFrameNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        originalClient = QueryUtils.getHttpClient();
+        BooksActivity.setNetworkCheck(Fixtures.ONLINE);
+        final byte[] page = Fixtures.bytes(Fixtures.VOLUMES_40_FIELDS);
+        QueryUtils.setHttpClient(new BooksHttpClient() {
+            @Override
+            public Response get(URL url, Map<String, String> headers, BookRequest request) throws IOException {
+                return new Response(200, Collections.<String, List<String>>emptyMap(), new ByteArrayInputStream(page));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        BooksActivity.setNetworkCheck(BooksActivity.ACTIVE_NETWORK);
+        if (originalClient != null) {
+            QueryUtils.setHttpClient(originalClient);
+        }
+    }
+
+    @Test
+    public void flingThroughResults() throws Exception {
+        try (ActivityScenario<BooksActivity> scenario = ActivityScenario.launch(BooksActivity.class)) {
+            scenario.onActivity(new ActivityScenario.ActivityAction<BooksActivity>() {
+                @Override
+                public void perform(BooksActivity activity) {
+                    EditText searchBar = activity.findViewById(R.id.search_bar);
+                    searchBar.setText("fling " + System.nanoTime());
+                    searchBar.onEditorAction(EditorInfo.IME_ACTION_SEARCH);
+                }
+            });
+            awaitBooks(scenario);
+            Metrics.reset();
+
+            final FrameRecorder frames = new FrameRecorder();
+            scenario.onActivity(new ActivityScenario.ActivityAction<BooksActivity>() {
+                @Override
+                public void perform(BooksActivity activity) {
+                    frames.start();
+                }
+            });
+            for (int i = 0; i < FLINGS; i++) {
+                final int velocity = i % 2 == 0 ? FLING_VELOCITY : -FLING_VELOCITY / 2;
+                scenario.onActivity(new ActivityScenario.ActivityAction<BooksActivity>() {
+                    @Override
+                    public void perform(BooksActivity activity) {
+                        RecyclerView recyclerView = activity.findViewById(R.id.recycle_view);
+                        recyclerView.fling(0, velocity);
+                    }
+                });
+                awaitIdle(scenario);
+            }
+
+            scenario.onActivity(new ActivityScenario.ActivityAction<BooksActivity>() {
+                @Override
+                public void perform(BooksActivity activity) {
+                    frames.stop();
+                }
+            });
+
+            report(frames.intervals);
+            if (Metrics.ENABLED) {
+                Log.i(TAG, Metrics.ROW_LAYOUT + ", " + Metrics.FRAME + ", " + Metrics.DROPPED_FRAMES);
+                assertTrue(Metrics.ROW_LAYOUT.getCount() > 0);
+            }
+        }
+    }
+
+    private static void report(List<Long> intervals) {
+        assertTrue("no frames drawn during the flings", !intervals.isEmpty());
+        List<Long> sorted = new ArrayList<>(intervals);
+        Collections.sort(sorted);
+        int overBudget = 0;
+        for (long interval : sorted) {
+            //half a frame of slack for vsync jitter
+            if (interval > FRAME_BUDGET_NANOS * 3 / 2) {
+                overBudget++;
+            }
+        }
+        Bundle status = new Bundle();
+        status.putInt("fling_frames", sorted.size());
+        status.putInt("fling_frames_over_budget", overBudget);
+        StringBuilder line = new StringBuilder("frames=" + sorted.size() + " over budget=" + overBudget);
+        for (int percentile : new int[]{50, 90, 99}) {
+            long micros = sorted.get(Math.min(sorted.size() - 1, sorted.size() * percentile / 100)) / 1000;
+            status.putLong("fling_frame_p" + percentile + "_us", micros);
+            line.append(" p").append(percentile).append('=').append(micros).append("us");
+        }
+        Log.i(TAG, line.toString());
+        InstrumentationRegistry.getInstrumentation().sendStatus(2, status);
+    }
+
+    private static void awaitBooks(ActivityScenario<BooksActivity> scenario) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        final int[] count = new int[1];
+        do {
+            assertTrue("no books loaded", System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+            scenario.onActivity(new ActivityScenario.ActivityAction<BooksActivity>() {
+                @Override
+                public void perform(BooksActivity activity) {
+                    RecyclerView recyclerView = activity.findViewById(R.id.recycle_view);
+                    count[0] = recyclerView.getAdapter().getItemCount();
+                }
+            });
+        } while (count[0] == 0);
+    }
+
+    private static void awaitIdle(ActivityScenario<BooksActivity> scenario) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        final int[] state = new int[1];
+        do {
+            Thread.sleep(100);
+            InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+            scenario.onActivity(new ActivityScenario.ActivityAction<BooksActivity>() {
+                @Override
+                public void perform(BooksActivity activity) {
+                    RecyclerView recyclerView = activity.findViewById(R.id.recycle_view);
+                    state[0] = recyclerView.getScrollState();
+                }
+            });
+        } while (state[0] != RecyclerView.SCROLL_STATE_IDLE && System.currentTimeMillis() < deadline);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.booklistingapp;
+
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+//Re-sorting and filtering 5000 loaded books from BookIndex, what a sort or filter menu pick costs.
+//These should stay well under a millisecond; indexOnePage is the cost added to each page as it arrives.
+@BenchmarkTest
+@RunWith(AndroidJUnit4.class)
+public class IndexBenchmark {
+    private static final int BOOKS = 5000;
+    private static final int PAGE = 40;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final List<Book> books = new ArrayList<>();
+    private final BookIndex index = new BookIndex();
+
+    @Before
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < BOOKS; i++) {
+            int pageCount = random.nextInt(10) == 0 ? Book.INT_FIELD_NOT_PROVIDED : random.nextInt(1200);
+            int date = random.nextInt(20) == 0 ? BookDate.NONE
+                    : BookDate.of(1900 + random.nextInt(120), random.nextInt(13), 0);
+            List<String> authors = new ArrayList<>();
+            authors.add("Author " + random.nextInt(500));
+            books.add(new Book("id" + i, "Title " + i, authors, "", date, pageCount, ""));
+        }
+        for (int start = 0; start < BOOKS; start += PAGE) {
+            index.addAll(books.subList(start, start + PAGE));
+        }
+    }
+
+    @Test
+    public void sortNewest() {
+        BookIndex.Filter filter = new BookIndex.Filter.Builder().sort(BookIndex.Sort.NEWEST).build();
+        assertEquals(BOOKS, index.apply(filter).length);
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            index.apply(filter);
+        }
+    }
+
+    @Test
+    public void sortMostPages() {
+        BookIndex.Filter filter = new BookIndex.Filter.Builder().sort(BookIndex.Sort.MOST_PAGES).build();
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            index.apply(filter);
+        }
+    }
+
+    @Test
+    public void filterPagesAndYears() {
+        BookIndex.Filter filter = new BookIndex.Filter.Builder()
+                .sort(BookIndex.Sort.FEWEST_PAGES)
+                .pages(200, 500)
+                .years(2000, 2009)
+                .build();
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            index.apply(filter);
+        }
+    }
+
+    @Test
+    public void filterAuthor() {
+        BookIndex.Filter filter = new BookIndex.Filter.Builder().author("Author 7").build();
+        assertTrue(index.apply(filter).length > 0);
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            index.apply(filter);
+        }
+    }
+
+    @Test
+    public void indexOnePage() {
+        List<Book> page = books.subList(0, PAGE);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            BookIndex loaded = new BookIndex();
+            for (int start = 0; start < BOOKS - PAGE; start += PAGE) {
+                loaded.addAll(books.subList(start, start + PAGE));
+            }
+            state.resumeTiming();
+            loaded.addAll(page);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.booklistingapp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+
+import okhttp3.mockwebserver.MockWebServer;
+
+//MockWebServer standing in for the Books API: QueryUtils sends its requests here, with the same path and query
+//string, through a real UrlConnectionHttpClient. Close it to put the previous client back.
+class LocalBooksServer implements Closeable {
+    final MockWebServer server = new MockWebServer();
+    private final BooksHttpClient originalClient;
+
+    LocalBooksServer() throws IOException {
+        server.start();
+        originalClient = QueryUtils.getHttpClient();
+        final BooksHttpClient local = new UrlConnectionHttpClient();
+        QueryUtils.setHttpClient(new BooksHttpClient() {
+            @Override
+            public Response get(URL url, Map<String, String> headers, BookRequest request) throws IOException {
+                return local.get(new URL(server.url(url.getFile()).toString()), headers, request);
+            }
+        });
+    }
+
+    //First page URL of a query no other test has used, so neither the page cache nor the coalescer answers it
+    static String uniqueUrl(String query) {
+        return new BooksQuery.Builder(query + " " + System.nanoTime()).build().toUrl();
+    }
+
+    @Override
+    public void close() throws IOException {
+        QueryUtils.setHttpClient(originalClient);
+        server.shutdown();
+    }
+}
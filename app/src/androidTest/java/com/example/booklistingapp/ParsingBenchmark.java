@@ -0,0 +1,121 @@
+package com.example.booklistingapp;
+
+import android.util.Log;
+
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.benchmark.BenchmarkState;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@BenchmarkTest
+@RunWith(AndroidJUnit4.class)
+public class ParsingBenchmark {
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void parseJSONData_10() throws Exception {
+        parseJSONData(Fixtures.VOLUMES_10, 10);
+    }
+
+    @Test
+    public void parseJSONData_40() throws Exception {
+        parseJSONData(Fixtures.VOLUMES_40, 40);
+    }
+
+    @Test
+    public void parseJSONStream_10() throws Exception {
+        parseJSONStream(Fixtures.VOLUMES_10, 10);
+    }
+
+    @Test
+    public void parseJSONStream_40() throws Exception {
+        parseJSONStream(Fixtures.VOLUMES_40, 40);
+    }
+
+    @Test
+    public void parseJSONStream_10_fields() throws Exception {
+        parseJSONStream(Fixtures.VOLUMES_10_FIELDS, 10);
+    }
+
+    @Test
+    public void parseJSONStream_40_fields() throws Exception {
+        parseJSONStream(Fixtures.VOLUMES_40_FIELDS, 40);
+    }
+
+    //The streaming parser skips what it does not read instead of building a DOM of the whole response
+    @Test
+    public void parseJSONStream_allocatesLessThanParseJSONData() throws Exception {
+        for (String fixture : new String[]{Fixtures.VOLUMES_10, Fixtures.VOLUMES_40}) {
+            final String string = Fixtures.string(fixture);
+            final byte[] bytes = Fixtures.bytes(fixture);
+            long dom = Allocations.report("compare_parseJSONData_" + Fixtures.name(fixture), new Allocations.Op() {
+                @Override
+                public void run() {
+                    QueryUtils.parseJSONData(string);
+                }
+            });
+            long stream = Allocations.report("compare_parseJSONStream_" + Fixtures.name(fixture), new Allocations.Op() {
+                @Override
+                public void run() throws Exception {
+                    QueryUtils.parseJSONStream(new ByteArrayInputStream(bytes));
+                }
+            });
+            assertTrue(Fixtures.name(fixture) + ": stream " + stream + " vs DOM " + dom, stream < dom);
+        }
+    }
+
+    //The projection has to keep everything Book reads
+    @Test
+    public void fieldProjection_parsesTheSameBooks() {
+        List<Book> full = Fixtures.books(Fixtures.VOLUMES_40);
+        List<Book> projected = Fixtures.books(Fixtures.VOLUMES_40_FIELDS);
+
+        assertEquals(full.size(), projected.size());
+        for (int i = 0; i < full.size(); i++) {
+            assertTrue(projected.get(i).hasSameContents(full.get(i)));
+        }
+        Log.i("Benchmark", "page of 40: full=" + Fixtures.bytes(Fixtures.VOLUMES_40).length
+                + " bytes, fields=" + Fixtures.bytes(Fixtures.VOLUMES_40_FIELDS).length + " bytes");
+    }
+
+    private void parseJSONData(String fixture, int expected) throws Exception {
+        final String data = Fixtures.string(fixture);
+        assertEquals(expected, QueryUtils.parseJSONData(data).size());
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            QueryUtils.parseJSONData(data);
+        }
+        Allocations.report("parseJSONData_" + Fixtures.name(fixture), new Allocations.Op() {
+            @Override
+            public void run() {
+                QueryUtils.parseJSONData(data);
+            }
+        });
+    }
+
+    private void parseJSONStream(String fixture, int expected) throws Exception {
+        final byte[] data = Fixtures.bytes(fixture);
+        assertEquals(expected, QueryUtils.parseJSONStream(new ByteArrayInputStream(data)).size());
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            QueryUtils.parseJSONStream(new ByteArrayInputStream(data));
+        }
+        Allocations.report("parseJSONStream_" + Fixtures.name(fixture), new Allocations.Op() {
+            @Override
+            public void run() throws Exception {
+                QueryUtils.parseJSONStream(new ByteArrayInputStream(data));
+            }
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.booklistingapp;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+
+import static org.junit.Assert.*;
+
+//Identical searches in flight at the same time against a local server
+@RunWith(AndroidJUnit4.class)
+public class RequestCoalescingTest {
+    private static final int CALLERS = 8;
+
+    private LocalBooksServer local;
+    private String volumes;
+
+    @Before
+    public void setUp() throws IOException {
+        local = new LocalBooksServer();
+        volumes = Fixtures.string(Fixtures.VOLUMES_10_FIELDS);
+        QueryUtils.getCircuitBreaker().onSuccess();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        local.close();
+    }
+
+    @Test
+    public void concurrentIdenticalRequests_makeOneBackendCall() throws Exception {
+        //slow enough that every caller arrives while the first one is still reading
+        local.server.enqueue(new MockResponse().setBody(volumes).setBodyDelay(1, TimeUnit.SECONDS));
+        local.server.enqueue(new MockResponse().setBody(volumes));
+
+        final String url = LocalBooksServer.uniqueUrl("coalesced");
+        final CountDownLatch start = new CountDownLatch(1);
+        int coalescedBefore = QueryUtils.getCoalescedCount();
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        List<Future<BookResult>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(new Callable<BookResult>() {
+                @Override
+                public BookResult call() throws InterruptedException {
+                    start.await();
+                    return QueryUtils.fetchPage(url, new BookRequest(url, 0));
+                }
+            }));
+        }
+        start.countDown();
+
+        for (Future<BookResult> result : results) {
+            BookResult books = result.get(5, TimeUnit.SECONDS);
+            assertTrue(books.isLoaded());
+            assertEquals(10, books.getBooks().size());
+        }
+        executor.shutdown();
+
+        assertEquals(1, local.server.getRequestCount());
+        assertEquals(coalescedBefore + CALLERS - 1, QueryUtils.getCoalescedCount());
+    }
+
+    @Test
+    public void cancelledLeader_doesNotFailTheOtherCallers() throws Exception {
+        local.server.enqueue(new MockResponse().setBody(volumes).setBodyDelay(2, TimeUnit.SECONDS));
+        local.server.enqueue(new MockResponse().setBody(volumes));
+
+        final String url = LocalBooksServer.uniqueUrl("leader cancelled");
+        final BookRequest leader = new BookRequest(url, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<BookResult> first = executor.submit(new Callable<BookResult>() {
+            @Override
+            public BookResult call() {
+                return QueryUtils.fetchPage(url, leader);
+            }
+        });
+        assertNotNull(local.server.takeRequest(5, TimeUnit.SECONDS));
+        Future<BookResult> second = executor.submit(new Callable<BookResult>() {
+            @Override
+            public BookResult call() {
+                return QueryUtils.fetchPage(url, new BookRequest(url, 0));
+            }
+        });
+        Thread.sleep(100);
+        leader.cancel();
+
+        assertFalse(first.get(5, TimeUnit.SECONDS).isLoaded());
+        assertTrue(second.get(5, TimeUnit.SECONDS).isLoaded());
+        executor.shutdown();
+        assertEquals(2, local.server.getRequestCount());
+    }
+}
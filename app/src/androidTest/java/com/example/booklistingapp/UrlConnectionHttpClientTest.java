@@ -0,0 +1,100 @@
+package com.example.booklistingapp;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+//The client against a local server: gzip bodies, connection reuse and error bodies
+@RunWith(AndroidJUnit4.class)
+public class UrlConnectionHttpClientTest {
+    private MockWebServer server;
+    private UrlConnectionHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new UrlConnectionHttpClient();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void gzipBody_isDecoded() throws Exception {
+        server.enqueue(new MockResponse().setHeader("Content-Encoding", "gzip").setBody(gzip("{\"items\": []}")));
+
+        try (BooksHttpClient.Response response = get("/volumes")) {
+            assertEquals(200, response.getCode());
+            assertEquals("{\"items\": []}", read(response.getBody()));
+        }
+        assertEquals("gzip", server.takeRequest().getHeader("Accept-Encoding"));
+    }
+
+    @Test
+    public void closedResponse_leavesTheConnectionForTheNextRequest() throws Exception {
+        server.enqueue(new MockResponse().setBody("first"));
+        server.enqueue(new MockResponse().setBody("second"));
+
+        try (BooksHttpClient.Response response = get("/first")) {
+            read(response.getBody());
+        }
+        try (BooksHttpClient.Response response = get("/second")) {
+            assertEquals("second", read(response.getBody()));
+        }
+
+        //the sequence number counts requests on the same connection
+        assertEquals(0, server.takeRequest().getSequenceNumber());
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    public void errorResponse_hasItsBody() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503).setBody("down"));
+
+        try (BooksHttpClient.Response response = get("/volumes")) {
+            assertEquals(503, response.getCode());
+            assertEquals("down", read(response.getBody()));
+        }
+    }
+
+    private BooksHttpClient.Response get(String path) throws IOException {
+        return client.get(new URL(server.url(path).toString()), Collections.<String, String>emptyMap(), null);
+    }
+
+    private static Buffer gzip(String body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body.getBytes("UTF-8"));
+        }
+        return new Buffer().write(bytes.toByteArray());
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString("UTF-8");
+    }
+}
@@ -2,26 +2,51 @@ package com.example.booklistingapp;
 
 import android.graphics.Bitmap;
 
-import java.util.Date;
 import java.util.List;
 
 public class Book {
+    private String id;
     private String title;
     private List<String> authors;
     private String description;
     private String imageURL;
-    private Date publishedDate;
+    // Packed by BookDate, BookDate.NONE when not provided
+    private int publishedDate;
     private int pageCount;
 
-    public static final int INT_FIELD_NOT_PROVIDED = -1;
+    // Row text, built once on the thread that parses the page so binding only assigns it
+    private String authorsText;
+    private String pageCountText;
+    private String publishedDateText;
+    private CharSequence titleText;
+    private CharSequence descriptionText;
 
-    public Book(String title, List<String> authors, String description, Date publishedDate, int pageCount, String imageURL) {
+    public static final int INT_FIELD_NOT_PROVIDED = -1;
+    public Book(String id, String title, List<String> authors, String description, int publishedDate, int pageCount, String imageURL) {
+        this.id = id;
         this.title = title;
         this.authors = authors;
         this.description = description;
         this.publishedDate = publishedDate;
         this.pageCount = pageCount;
         this.imageURL = imageURL;
+
+        titleText = title;
+        descriptionText = description == null ? "" : BookTextPrecomputer.trimDescription(description);
+        if (authors != null) {
+            authorsText = "Author: " + joinAuthors(authors);
+        }
+        if (pageCount != INT_FIELD_NOT_PROVIDED) {
+            pageCountText = "Pages: " + pageCount;
+        }
+        if (publishedDate != BookDate.NONE) {
+            publishedDateText = "Published: " + BookDate.format(publishedDate);
+        }
+    }
+
+    //Google Books volume id, stable across queries
+    public String getId() {
+        return id;
     }
 
     public String getImageURL() {
@@ -40,11 +65,66 @@ public class Book {
         return description;
     }
 
-    public Date getPublishedDate() {
+    public int getPublishedDate() {
         return publishedDate;
     }
 
     public int getPageCount() {
         return pageCount;
     }
+
+    //"Author: ..." or null when the volume has no authors
+    public String getAuthorsText() {
+        return authorsText;
+    }
+
+    //"Pages: ..." or null when the page count isn't provided
+    public String getPageCountText() {
+        return pageCountText;
+    }
+
+    //"Published: dd/MM/yyyy" or null when the date is missing
+    public String getPublishedDateText() {
+        return publishedDateText;
+    }
+
+    //Title to display, measured ahead of time once BookTextPrecomputer has run
+    public CharSequence getTitleText() {
+        return titleText;
+    }
+
+    //Bounded prefix of the description to display, measured ahead of time once BookTextPrecomputer has run
+    public CharSequence getDescriptionText() {
+        return descriptionText;
+    }
+
+    void setDisplayText(CharSequence titleText, CharSequence descriptionText) {
+        this.titleText = titleText;
+        this.descriptionText = descriptionText;
+    }
+
+    public boolean hasSameContents(Book other) {
+        return other != null
+                && equal(title, other.title)
+                && equal(authors, other.authors)
+                && equal(description, other.description)
+                && publishedDate == other.publishedDate
+                && pageCount == other.pageCount
+                && equal(imageURL, other.imageURL);
+    }
+
+    static String joinAuthors(List<String> authors) {
+        StringBuilder authorsString = new StringBuilder();
+        for (int i = 0; i < authors.size(); i++) {
+            authorsString.append(authors.get(i));
+            if (i != authors.size() - 1) {
+                authorsString.append(", ");
+            }
+        }
+        return authorsString.toString();
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
 }
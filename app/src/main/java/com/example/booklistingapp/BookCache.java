@@ -0,0 +1,291 @@
+package com.example.booklistingapp;
+
+import android.content.Context;
+import android.net.Uri;
+import android.net.http.HttpResponseCache;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+//Two level cache for result pages: parsed pages in memory, raw responses on disk.
+//First pages fetched ahead of time by CacheWarmUp are kept on disk as well and answer the first search after a cold start.
+public class BookCache {
+    private static final String TAG = "BookCache";
+    private static final int MEMORY_CACHE_PAGES = 64;
+    private static final long DISK_CACHE_SIZE = 10 * 1024 * 1024;
+    private static final long DEFAULT_TTL = 5 * 60 * 1000;
+    private static final long DEFAULT_STALE_WINDOW = 60 * 60 * 1000;
+    // Warmed pages older than this are not served, the next warm-up replaces them
+    static final long WARM_PAGE_MAX_AGE = 24 * 60 * 60 * 1000;
+    private static final String WARM_PAGE_DIR = "warm_pages";
+
+    private static BookCache instance;
+
+    private final LruCache<String, Entry> memoryCache = new LruCache<>(MEMORY_CACHE_PAGES);
+    private HttpResponseCache diskCache;
+    private long ttl = DEFAULT_TTL;
+    private long staleWindow = DEFAULT_STALE_WINDOW;
+    private int staleHitCount;
+    // Set once by install(), read without the lock by the warmed page I/O
+    private volatile File warmPageDir;
+    private int warmHitCount;
+
+    static class Entry {
+        // Kept as Book objects so their formatted and precomputed display text is reused by every hit
+        final List<Book> books;
+        final long storedAt;
+
+        Entry(List<Book> books, long storedAt) {
+            this.books = Collections.unmodifiableList(new ArrayList<>(books));
+            this.storedAt = storedAt;
+        }
+
+        //A list of its own for the adapter, holding the cached Book objects
+        ArrayList<Book> getBooks() {
+            return new ArrayList<>(books);
+        }
+    }
+
+    private BookCache() {
+    }
+
+    public static synchronized BookCache getInstance() {
+        if (instance == null) {
+            instance = new BookCache();
+        }
+        return instance;
+    }
+
+    //Installs the size-bounded disk store. HttpURLConnection then revalidates with If-None-Match on its own.
+    public synchronized void install(Context context) {
+        warmPageDir = new File(context.getCacheDir(), WARM_PAGE_DIR);
+        if (diskCache != null) {
+            return;
+        }
+        diskCache = HttpResponseCache.getInstalled();
+        if (diskCache == null) {
+            try {
+                diskCache = HttpResponseCache.install(new File(context.getCacheDir(), "books_http"), DISK_CACHE_SIZE);
+            } catch (IOException e) {
+                Log.e(TAG, "install: could not create the disk cache");
+            }
+        }
+    }
+
+    public synchronized void setTtl(long ttl, long staleWindow) {
+        this.ttl = ttl;
+        this.staleWindow = staleWindow;
+    }
+
+    public synchronized long getTtl() {
+        return ttl;
+    }
+
+    public synchronized boolean isDiskCacheInstalled() {
+        return diskCache != null;
+    }
+
+    //Returns the cached page, or null if it is missing or too old to be served even stale
+    public Entry get(String url) {
+        String key = keyFor(url);
+        synchronized (this) {
+            Entry entry = memoryCache.get(key);
+            if (entry != null) {
+                if (System.currentTimeMillis() - entry.storedAt > ttl + staleWindow) {
+                    memoryCache.remove(key);
+                    return null;
+                }
+                if (isStale(entry)) {
+                    staleHitCount++;
+                }
+                return entry;
+            }
+        }
+        //a warmed page is served once and stale, so the search refreshes it right away.
+        //Read outside the lock, other pages are served meanwhile.
+        Entry entry = takeWarmPage(url);
+        if (entry != null) {
+            synchronized (this) {
+                memoryCache.put(key, entry);
+                warmHitCount++;
+            }
+            Metrics.WARM_PAGE_HITS.increment();
+        }
+        return entry;
+    }
+
+    public synchronized boolean isStale(Entry entry) {
+        return System.currentTimeMillis() - entry.storedAt > ttl;
+    }
+
+    public synchronized void put(String url, List<Book> books) {
+        memoryCache.put(keyFor(url), new Entry(books, System.currentTimeMillis()));
+    }
+
+    //Stores the first page of the query for a later cold start. Takes a page of BooksQuery.MAX_PAGE_SIZE books,
+    //searches with smaller pages are served its first books.
+    public boolean putWarmPage(String url, List<Book> books) {
+        File file = warmPageFile(url);
+        if (file == null || (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs())) {
+            return false;
+        }
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp))) {
+            BookCodec.write(books, out);
+        } catch (IOException e) {
+            Log.e(TAG, "putWarmPage: could not write " + temp, e);
+            temp.delete();
+            return false;
+        }
+        return temp.renameTo(file);
+    }
+
+    //The warmed page file of the url, null for pages past the first and queries that aren't warmed
+    File warmPageFile(String url) {
+        File warmPageDir = this.warmPageDir;
+        if (warmPageDir == null) {
+            return null;
+        }
+        Uri uri = Uri.parse(url);
+        String startIndex = uri.getQueryParameter("startIndex");
+        String query = uri.getQueryParameter("q");
+        if ((startIndex != null && !startIndex.equals("0")) || query == null || QueryMatcher.normalize(query).isEmpty()) {
+            return null;
+        }
+        //hashed, the filters and field projection make the search key too long for a file name
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(searchKeyFor(uri).getBytes("UTF-8"));
+            StringBuilder name = new StringBuilder();
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return new File(warmPageDir, name.toString());
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    //Warmed page files still waiting to be served
+    File[] listWarmPages() {
+        File warmPageDir = this.warmPageDir;
+        File[] files = warmPageDir != null ? warmPageDir.listFiles() : null;
+        return files != null ? files : new File[0];
+    }
+
+    //Reads and removes the warmed page, cut to the page size of the url. Called without the lock: the file is
+    //claimed by renaming it, so of two searches racing for the page only one reads it.
+    //A page that can't be read is left behind empty, CacheWarmUp counts it as not used.
+    private Entry takeWarmPage(String url) {
+        File file = warmPageFile(url);
+        if (file == null || file.length() == 0) {
+            return null;
+        }
+        long storedAt = file.lastModified();
+        if (System.currentTimeMillis() - storedAt > WARM_PAGE_MAX_AGE) {
+            return null;
+        }
+        int pageSize = Integer.MAX_VALUE;
+        String maxResults = Uri.parse(url).getQueryParameter("maxResults");
+        if (maxResults != null) {
+            try {
+                pageSize = Integer.parseInt(maxResults);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        File taken = new File(file.getParentFile(), file.getName() + ".taken");
+        if (!file.renameTo(taken)) {
+            return null;
+        }
+        List<Book> books;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(taken))) {
+            books = BookCodec.read(in);
+        } catch (IOException e) {
+            Log.e(TAG, "takeWarmPage: could not read " + file, e);
+            try {
+                new FileOutputStream(file).close();
+            } catch (IOException ignored) {
+            }
+            return null;
+        } finally {
+            taken.delete();
+        }
+        return new Entry(books.subList(0, Math.min(books.size(), pageSize)), storedAt);
+    }
+
+    public synchronized void clear() {
+        memoryCache.evictAll();
+    }
+
+    public synchronized int getHitCount() {
+        return memoryCache.hitCount();
+    }
+
+    public synchronized int getMissCount() {
+        return memoryCache.missCount();
+    }
+
+    public synchronized int getStaleHitCount() {
+        return staleHitCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return memoryCache.evictionCount();
+    }
+
+    public synchronized int getWarmHitCount() {
+        return warmHitCount;
+    }
+
+    public synchronized int getDiskHitCount() {
+        return diskCache != null ? diskCache.getHitCount() : 0;
+    }
+
+    public synchronized int getNetworkCount() {
+        return diskCache != null ? diskCache.getNetworkCount() : 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "memory hits=" + getHitCount() + " (stale=" + staleHitCount + ") misses=" + getMissCount()
+                + " evictions=" + getEvictionCount() + ", warmed hits=" + warmHitCount + ", disk hits=" + getDiskHitCount()
+                + " network=" + getNetworkCount();
+    }
+
+    //Same query typed with different case or spacing maps to the same page. Every other parameter but the API key
+    //is part of the key, so searches with different filters or field projections never share a page.
+    static String keyFor(String url) {
+        Uri uri = Uri.parse(url);
+        String startIndex = uri.getQueryParameter("startIndex");
+        String maxResults = uri.getQueryParameter("maxResults");
+        return searchKeyFor(uri) + "|" + (startIndex == null ? "0" : startIndex) + "|" + maxResults;
+    }
+
+    //The search a page belongs to: the normalized query and the filters, in name order, without the paging
+    private static String searchKeyFor(Uri uri) {
+        StringBuilder key = new StringBuilder();
+        for (String name : new TreeSet<>(uri.getQueryParameterNames())) {
+            if (name.equals("key") || name.equals("startIndex") || name.equals("maxResults")) {
+                continue;
+            }
+            String value = uri.getQueryParameter(name);
+            key.append(name).append('=').append(name.equals("q") ? QueryMatcher.normalize(value) : value).append('&');
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.booklistingapp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Compact binary form of a list of books: authors interned in a table, packed dates, varint lengths
+public class BookCodec {
+    private static final int MAGIC = 0x424B;
+    private static final int VERSION = 2;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_AUTHORS = 1 << 1;
+    private static final int HAS_DESCRIPTION = 1 << 2;
+    private static final int HAS_DATE = 1 << 3;
+    private static final int HAS_PAGE_COUNT = 1 << 4;
+    private static final int HAS_IMAGE = 1 << 5;
+
+    public static byte[] encode(List<Book> books) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(books.size() * 256);
+        try {
+            write(books, bytes);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    //Null entries (the progress row) are skipped
+    public static void write(List<Book> books, OutputStream out) throws IOException {
+        Map<String, Integer> authorIds = new HashMap<>();
+        List<String> authorTable = new ArrayList<>();
+        int count = 0;
+        for (Book book : books) {
+            if (book == null) {
+                continue;
+            }
+            count++;
+            if (book.getAuthors() != null) {
+                for (String author : book.getAuthors()) {
+                    if (!authorIds.containsKey(author)) {
+                        authorIds.put(author, authorTable.size());
+                        authorTable.add(author);
+                    }
+                }
+            }
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeShort(MAGIC);
+        data.writeByte(VERSION);
+        writeVarInt(data, authorTable.size());
+        for (String author : authorTable) {
+            writeString(data, author);
+        }
+        writeVarInt(data, count);
+        for (Book book : books) {
+            if (book == null) {
+                continue;
+            }
+            int flags = 0;
+            flags |= book.getId() != null ? HAS_ID : 0;
+            flags |= book.getAuthors() != null ? HAS_AUTHORS : 0;
+            flags |= book.getDescription() != null && !book.getDescription().isEmpty() ? HAS_DESCRIPTION : 0;
+            flags |= book.getPublishedDate() != BookDate.NONE ? HAS_DATE : 0;
+            flags |= book.getPageCount() != Book.INT_FIELD_NOT_PROVIDED ? HAS_PAGE_COUNT : 0;
+            flags |= book.getImageURL() != null && !book.getImageURL().isEmpty() ? HAS_IMAGE : 0;
+            data.writeByte(flags);
+
+            if ((flags & HAS_ID) != 0) {
+                writeString(data, book.getId());
+            }
+            writeString(data, book.getTitle());
+            if ((flags & HAS_AUTHORS) != 0) {
+                writeVarInt(data, book.getAuthors().size());
+                for (String author : book.getAuthors()) {
+                    writeVarInt(data, authorIds.get(author));
+                }
+            }
+            if ((flags & HAS_DESCRIPTION) != 0) {
+                writeString(data, book.getDescription());
+            }
+            if ((flags & HAS_DATE) != 0) {
+                writeVarInt(data, book.getPublishedDate());
+            }
+            if ((flags & HAS_PAGE_COUNT) != 0) {
+                writeVarInt(data, book.getPageCount());
+            }
+            if ((flags & HAS_IMAGE) != 0) {
+                writeString(data, book.getImageURL());
+            }
+        }
+        data.flush();
+    }
+
+    //Reads the rest of the stream, see decode
+    public static ArrayList<Book> read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return decode(bytes.toByteArray());
+    }
+
+    //Every count, length and author index is checked against what is left of data, so a truncated or corrupt
+    //list fails with an IOException instead of allocating huge arrays or throwing a runtime exception
+    public static ArrayList<Book> decode(byte[] data) throws IOException {
+        Input input = new Input(data);
+        if (input.readShort() != MAGIC || input.readByte() != VERSION) {
+            throw new IOException("Not a book list or an unsupported version");
+        }
+        // each author takes at least its length byte
+        String[] authorTable = new String[input.readCount(1)];
+        for (int i = 0; i < authorTable.length; i++) {
+            authorTable[i] = input.readString();
+        }
+
+        // each book takes at least its flags and the length of its title
+        int count = input.readCount(2);
+        ArrayList<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int flags = input.readByte();
+            String id = (flags & HAS_ID) != 0 ? input.readString() : null;
+            String title = input.readString();
+            List<String> authors = null;
+            if ((flags & HAS_AUTHORS) != 0) {
+                int authorCount = input.readCount(1);
+                authors = new ArrayList<>(authorCount);
+                for (int j = 0; j < authorCount; j++) {
+                    int author = input.readVarInt();
+                    if (author < 0 || author >= authorTable.length) {
+                        throw new IOException("Author " + author + " not in a table of " + authorTable.length);
+                    }
+                    authors.add(authorTable[author]);
+                }
+            }
+            String description = (flags & HAS_DESCRIPTION) != 0 ? input.readString() : "";
+            int publishedDate = (flags & HAS_DATE) != 0 ? input.readVarInt() : BookDate.NONE;
+            int pageCount = (flags & HAS_PAGE_COUNT) != 0 ? input.readVarInt() : Book.INT_FIELD_NOT_PROVIDED;
+            String imageURL = (flags & HAS_IMAGE) != 0 ? input.readString() : "";
+            books.add(new Book(id, title, authors, description, publishedDate, pageCount, imageURL));
+        }
+        return books;
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarInt(data, bytes.length);
+        data.write(bytes);
+    }
+
+    private static void writeVarInt(DataOutputStream data, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            data.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte(value);
+    }
+
+    //Reads from a byte array, failing with an IOException past its end
+    private static class Input {
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        int remaining() {
+            return data.length - position;
+        }
+
+        int readByte() throws IOException {
+            if (position == data.length) {
+                throw new EOFException();
+            }
+            return data[position++] & 0xFF;
+        }
+
+        int readShort() throws IOException {
+            return readByte() << 8 | readByte();
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        //A count of items that take at least minBytes each, which the rest of the data has to be able to hold
+        int readCount(int minBytes) throws IOException {
+            int count = readVarInt();
+            if (count < 0 || count > remaining() / minBytes) {
+                throw new IOException("Count " + count + " with " + remaining() + " bytes left");
+            }
+            return count;
+        }
+
+        String readString() throws IOException {
+            int length = readCount(1);
+            String value = new String(data, position, length, UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
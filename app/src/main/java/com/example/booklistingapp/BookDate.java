@@ -0,0 +1,89 @@
+package com.example.booklistingapp;
+
+//Published dates packed into an int as yyyy << 9 | MM << 5 | dd, 0 for an unknown month or day.
+//Google Books gives "2004", "2004-05" or "2004-05-10", the precision is kept for display.
+//Stateless, so safe to call from any number of parse threads.
+public final class BookDate {
+    public static final int NONE = 0;
+
+    private static final int MAX_YEAR = 9999;
+
+    private BookDate() {
+    }
+
+    public static int of(int year, int month, int day) {
+        return year << 9 | month << 5 | day;
+    }
+
+    //Returns NONE when the text isn't one of the three forms or has an out of range field
+    public static int parse(String text) {
+        if (text == null) {
+            return NONE;
+        }
+        int length = text.length();
+        if (length != 4 && length != 7 && length != 10) {
+            return NONE;
+        }
+        int year = parseDigits(text, 0, 4);
+        int month = length >= 7 ? parseField(text, 4, 12) : 0;
+        int day = length == 10 ? parseField(text, 7, 31) : 0;
+        if (year <= 0 || year > MAX_YEAR || month < 0 || day < 0) {
+            return NONE;
+        }
+        return of(year, month, day);
+    }
+
+    public static int getYear(int date) {
+        return date >>> 9;
+    }
+
+    //1-12, 0 when only the year is known
+    public static int getMonth(int date) {
+        return date >>> 5 & 0xF;
+    }
+
+    //1-31, 0 when the day isn't known
+    public static int getDay(int date) {
+        return date & 0x1F;
+    }
+
+    //dd/MM/yyyy, MM/yyyy or yyyy depending on what is known
+    public static String format(int date) {
+        StringBuilder text = new StringBuilder(10);
+        if (getDay(date) != 0) {
+            appendTwoDigits(text, getDay(date)).append('/');
+        }
+        if (getMonth(date) != 0) {
+            appendTwoDigits(text, getMonth(date)).append('/');
+        }
+        return text.append(getYear(date)).toString();
+    }
+
+    //A "-" followed by two digits between 1 and max, -1 otherwise
+    private static int parseField(String text, int start, int max) {
+        if (text.charAt(start) != '-') {
+            return -1;
+        }
+        int value = parseDigits(text, start + 1, 2);
+        return value >= 1 && value <= max ? value : -1;
+    }
+
+    private static int parseDigits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder text, int value) {
+        if (value < 10) {
+            text.append('0');
+        }
+        return text.append(value);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.booklistingapp;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.widget.ImageView;
+
+import com.squareup.picasso.Callback;
+import com.squareup.picasso.LruCache;
+import com.squareup.picasso.OkHttp3Downloader;
+import com.squareup.picasso.Picasso;
+import com.squareup.picasso.RequestCreator;
+import com.squareup.picasso.StatsSnapshot;
+
+import java.io.File;
+
+//Thumbnail loading for the book rows: decoded at the row's size into a bounded cache
+public class BookImageLoader {
+    private static final String SCROLL_TAG = "BookImageLoader";
+    private static final long DISK_CACHE_SIZE = 20 * 1024 * 1024;
+    private static final int MAX_MEMORY_CACHE_SIZE = 16 * 1024 * 1024;
+
+    private static BookImageLoader instance;
+
+    private final Picasso picasso;
+    private final LruCache memoryCache;
+    private final int targetWidth;
+    private final int targetHeight;
+
+    private BookImageLoader(Context context) {
+        int memoryCacheSize = (int) Math.min(Runtime.getRuntime().maxMemory() / 8, MAX_MEMORY_CACHE_SIZE);
+        memoryCache = new LruCache(memoryCacheSize);
+        picasso = new Picasso.Builder(context)
+                .memoryCache(memoryCache)
+                .downloader(new OkHttp3Downloader(new File(context.getCacheDir(), "thumbnails"), DISK_CACHE_SIZE))
+                .defaultBitmapConfig(Bitmap.Config.RGB_565)
+                .build();
+        targetWidth = context.getResources().getDimensionPixelSize(R.dimen.thumbnail_width);
+        targetHeight = context.getResources().getDimensionPixelSize(R.dimen.thumbnail_height);
+    }
+
+    public static synchronized BookImageLoader get(Context context) {
+        if (instance == null) {
+            instance = new BookImageLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    //null until the first thumbnail was loaded
+    public static synchronized BookImageLoader peek() {
+        return instance;
+    }
+
+    public void load(String url, ImageView imageView) {
+        RequestCreator request = picasso.load(url)
+                .resize(targetWidth, targetHeight)
+                .centerInside()
+                .onlyScaleDown()
+                .tag(SCROLL_TAG);
+        if (!Metrics.ENABLED) {
+            request.into(imageView);
+            return;
+        }
+        final long start = System.nanoTime();
+        request.into(imageView, new Callback() {
+            @Override
+            public void onSuccess() {
+                Metrics.IMAGE_LOAD.recordNanos(System.nanoTime() - start);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Metrics.IMAGE_ERRORS.increment();
+            }
+        });
+    }
+
+    //Downloads and decodes the thumbnail into the caches ahead of its row, under the same key load() uses
+    public void prefetch(String url) {
+        picasso.load(url)
+                .resize(targetWidth, targetHeight)
+                .centerInside()
+                .onlyScaleDown()
+                .priority(Picasso.Priority.LOW)
+                .fetch();
+    }
+
+    public void cancel(ImageView imageView) {
+        picasso.cancelRequest(imageView);
+    }
+
+    //Holds back decoding while the list is flinging
+    public void pause() {
+        picasso.pauseTag(SCROLL_TAG);
+    }
+
+    public void resume() {
+        picasso.resumeTag(SCROLL_TAG);
+    }
+
+    @Override
+    public String toString() {
+        StatsSnapshot stats = picasso.getSnapshot();
+        return "image cache hits=" + stats.cacheHits + " misses=" + stats.cacheMisses
+                + " size=" + memoryCache.size() + "/" + memoryCache.maxSize() + " bytes";
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.booklistingapp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+//Sort keys and author lookup of the loaded books, kept in primitive arrays so the results can be
+//re-sorted and filtered without a new query. Rows are list positions, progress rows aren't indexed.
+public class BookIndex {
+    private static final int INITIAL_CAPACITY = 64;
+
+    public enum Sort {
+        RELEVANCE,
+        NEWEST,
+        OLDEST,
+        MOST_PAGES,
+        FEWEST_PAGES
+    }
+
+    private int size;
+    private int[] pageCounts = new int[INITIAL_CAPACITY];
+    private int[] dates = new int[INITIAL_CAPACITY];
+    // Rows in ascending key order, ties in row order. Books without the value come first.
+    private int[] byPages = new int[INITIAL_CAPACITY];
+    private int[] byDate = new int[INITIAL_CAPACITY];
+    private int missingPages;
+    private int missingDates;
+    // Lower case author name -> rows, ascending
+    private final HashMap<String, Rows> authorRows = new HashMap<>();
+
+    private static class Rows {
+        int[] rows = new int[4];
+        int count;
+
+        void add(int row) {
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+        missingPages = 0;
+        missingDates = 0;
+        authorRows.clear();
+    }
+
+    //Takes over the rows of an index built on another thread, see WindowedBookList.adopt. This index must be empty.
+    public void adopt(BookIndex restored) {
+        if (size != 0) {
+            throw new IllegalStateException("Only an empty index can adopt rows");
+        }
+        size = restored.size;
+        pageCounts = restored.pageCounts;
+        dates = restored.dates;
+        byPages = restored.byPages;
+        byDate = restored.byDate;
+        missingPages = restored.missingPages;
+        missingDates = restored.missingDates;
+        authorRows.putAll(restored.authorRows);
+    }
+
+    //Indexes the books as the next rows, null progress rows are skipped
+    public void addAll(List<Book> books) {
+        int start = size;
+        ensureCapacity(size + books.size());
+        for (Book book : books) {
+            if (book == null) {
+                continue;
+            }
+            int row = size++;
+            pageCounts[row] = book.getPageCount();
+            dates[row] = book.getPublishedDate();
+            if (book.getAuthors() != null) {
+                for (String author : book.getAuthors()) {
+                    String key = author.toLowerCase(Locale.ROOT);
+                    Rows rows = authorRows.get(key);
+                    if (rows == null) {
+                        rows = new Rows();
+                        authorRows.put(key, rows);
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        missingPages += merge(byPages, pageCounts, start, size, Book.INT_FIELD_NOT_PROVIDED);
+        missingDates += merge(byDate, dates, start, size, BookDate.NONE);
+    }
+
+    //Sorts the new rows [start, end) and merges them into the sorted rows [0, start), from the back so it is in place.
+    //Returns how many of the new rows have the missing value.
+    private static int merge(int[] sorted, int[] keys, int start, int end, int missing) {
+        int count = end - start;
+        //key in the high half and row in the low half, so one primitive sort orders by key then row
+        long[] added = new long[count];
+        int addedMissing = 0;
+        for (int i = 0; i < count; i++) {
+            int row = start + i;
+            added[i] = (long) keys[row] << 32 | row;
+            if (keys[row] == missing) {
+                addedMissing++;
+            }
+        }
+        Arrays.sort(added);
+
+        int i = start - 1;
+        int j = count - 1;
+        for (int out = end - 1; j >= 0; out--) {
+            //on equal keys the new row is the later one
+            if (i >= 0 && keys[sorted[i]] > (int) (added[j] >> 32)) {
+                sorted[out] = sorted[i--];
+            } else {
+                sorted[out] = (int) added[j--];
+            }
+        }
+        return addedMissing;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= pageCounts.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, pageCounts.length * 2);
+        pageCounts = Arrays.copyOf(pageCounts, newCapacity);
+        dates = Arrays.copyOf(dates, newCapacity);
+        byPages = Arrays.copyOf(byPages, newCapacity);
+        byDate = Arrays.copyOf(byDate, newCapacity);
+    }
+
+    //Rows that pass the filter, in its sort order. Books missing the sorted value come last.
+    public int[] apply(Filter filter) {
+        int[] order = new int[size];
+        switch (filter.sort) {
+            case NEWEST:
+                descending(byDate, dates, missingDates, order);
+                break;
+            case OLDEST:
+                ascending(byDate, missingDates, order);
+                break;
+            case MOST_PAGES:
+                descending(byPages, pageCounts, missingPages, order);
+                break;
+            case FEWEST_PAGES:
+                ascending(byPages, missingPages, order);
+                break;
+            default:
+                for (int row = 0; row < size; row++) {
+                    order[row] = row;
+                }
+        }
+
+        boolean[] byAuthor = null;
+        if (filter.author != null) {
+            byAuthor = new boolean[size];
+            Rows rows = authorRows.get(filter.author.toLowerCase(Locale.ROOT));
+            for (int i = 0; rows != null && i < rows.count; i++) {
+                byAuthor[rows.rows[i]] = true;
+            }
+        }
+
+        int count = 0;
+        for (int row : order) {
+            if ((byAuthor == null || byAuthor[row]) && filter.matches(pageCounts[row], dates[row])) {
+                order[count++] = row;
+            }
+        }
+        return count == size ? order : Arrays.copyOf(order, count);
+    }
+
+    private void ascending(int[] sorted, int missing, int[] order) {
+        System.arraycopy(sorted, missing, order, 0, size - missing);
+        System.arraycopy(sorted, 0, order, size - missing, missing);
+    }
+
+    //Runs of equal keys stay in row order, so ties keep the relevance order of the results
+    private void descending(int[] sorted, int[] keys, int missing, int[] order) {
+        int out = 0;
+        int runEnd = size;
+        while (runEnd > missing) {
+            int runStart = runEnd - 1;
+            while (runStart > missing && keys[sorted[runStart - 1]] == keys[sorted[runEnd - 1]]) {
+                runStart--;
+            }
+            System.arraycopy(sorted, runStart, order, out, runEnd - runStart);
+            out += runEnd - runStart;
+            runEnd = runStart;
+        }
+        System.arraycopy(sorted, 0, order, out, missing);
+    }
+
+    //Sort order and filters of the loaded results. Ranges are inclusive, ANY leaves a bound open.
+    public static class Filter {
+        public static final int ANY = -1;
+        public static final Filter NONE = new Builder().build();
+
+        private final Sort sort;
+        private final int minPages;
+        private final int maxPages;
+        private final int minYear;
+        private final int maxYear;
+        private final String author;
+
+        private Filter(Builder builder) {
+            sort = builder.sort;
+            minPages = builder.minPages;
+            maxPages = builder.maxPages;
+            minYear = builder.minYear;
+            maxYear = builder.maxYear;
+            author = builder.author;
+        }
+
+        public Sort getSort() {
+            return sort;
+        }
+
+        public int getMinPages() {
+            return minPages;
+        }
+
+        public int getMaxPages() {
+            return maxPages;
+        }
+
+        public int getMinYear() {
+            return minYear;
+        }
+
+        public int getMaxYear() {
+            return maxYear;
+        }
+
+        public String getAuthor() {
+            return author;
+        }
+
+        //True when the results are shown as loaded
+        public boolean isNone() {
+            return sort == Sort.RELEVANCE && minPages == ANY && maxPages == ANY
+                    && minYear == ANY && maxYear == ANY && author == null;
+        }
+
+        //A book without a page count or date is filtered out by a range on it
+        boolean matches(int pageCount, int date) {
+            if (minPages != ANY || maxPages != ANY) {
+                if (pageCount == Book.INT_FIELD_NOT_PROVIDED
+                        || (minPages != ANY && pageCount < minPages) || (maxPages != ANY && pageCount > maxPages)) {
+                    return false;
+                }
+            }
+            if (minYear != ANY || maxYear != ANY) {
+                int year = BookDate.getYear(date);
+                if (date == BookDate.NONE || (minYear != ANY && year < minYear) || (maxYear != ANY && year > maxYear)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public Builder buildUpon() {
+            return new Builder()
+                    .sort(sort)
+                    .pages(minPages, maxPages)
+                    .years(minYear, maxYear)
+                    .author(author);
+        }
+
+        public static class Builder {
+            private Sort sort = Sort.RELEVANCE;
+            private int minPages = ANY;
+            private int maxPages = ANY;
+            private int minYear = ANY;
+            private int maxYear = ANY;
+            private String author;
+
+            public Builder sort(Sort sort) {
+                this.sort = sort;
+                return this;
+            }
+
+            public Builder pages(int min, int max) {
+                minPages = min;
+                maxPages = max;
+                return this;
+            }
+
+            public Builder years(int min, int max) {
+                minYear = min;
+                maxYear = max;
+                return this;
+            }
+
+            //null shows every author
+            public Builder author(String author) {
+                this.author = author;
+                return this;
+            }
+
+            public Filter build() {
+                return new Filter(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.booklistingapp;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Handle for a page request (or a bulk one spanning several connections), lets the scheduler abort it mid-read
+public class BookRequest {
+    private final String url;
+    private final int generation;
+    private volatile boolean cancelled;
+    private final List<HttpURLConnection> connections = new ArrayList<>();
+    private volatile Future<?> future;
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    BookRequest(String url, int generation) {
+        this.url = url;
+        this.generation = generation;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void addBytesRead(long count) {
+        bytesRead.addAndGet(count);
+    }
+
+    //Response body bytes read for this request so far, after decompression
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+        if (cancelled) {
+            future.cancel(true);
+        }
+    }
+
+    void addConnection(HttpURLConnection connection) {
+        synchronized (connections) {
+            connections.add(connection);
+        }
+        if (cancelled) {
+            connection.disconnect();
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+        Future<?> future = this.future;
+        if (future != null) {
+            future.cancel(true);
+        }
+        synchronized (connections) {
+            for (HttpURLConnection connection : connections) {
+                //closes the socket so a blocked read fails right away
+                connection.disconnect();
+            }
+        }
+    }
+}
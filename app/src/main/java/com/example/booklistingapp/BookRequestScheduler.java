@@ -0,0 +1,165 @@
+package com.example.booklistingapp;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Runs book requests on a small bounded pool and drops results of superseded searches
+public class BookRequestScheduler {
+    private static final String TAG = "BookRequestScheduler";
+    private static final int POOL_SIZE = 2;
+    private static final int QUEUE_CAPACITY = 8;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    static final ThreadPoolExecutor EXECUTOR = createExecutor();
+    // Work no search waits on: opening caches, scheduling the warm-up, refreshing stale pages.
+    // Kept off EXECUTOR so it never queues ahead of a search.
+    static final ExecutorService BACKGROUND = Executors.newSingleThreadExecutor(threadFactory("Books background"));
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger generation = new AtomicInteger();
+    private final List<BookRequest> inFlight = new ArrayList<>();
+
+    public interface Callback {
+        //Called on the main thread, only for requests of the latest search
+        void onBooksLoaded(BookResult result);
+    }
+
+    //Background priority threads named "<name> #<n>"
+    static ThreadFactory threadFactory(final String name) {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, name + " #" + count.incrementAndGet());
+            }
+        };
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY), threadFactory("BookRequest"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    //Starts a new search: everything still running for the previous one is cancelled
+    public int newSearch() {
+        cancelAll();
+        return generation.incrementAndGet();
+    }
+
+    public int getGeneration() {
+        return generation.get();
+    }
+
+    public BookRequest submit(final String url, Callback callback) {
+        return execute(new BookRequest(url, generation.get()), callback, new Loader() {
+            @Override
+            public BookResult load(BookRequest request) {
+                return QueryUtils.extractBooksFromURL(url, request);
+            }
+        });
+    }
+
+    //Loads the first totalResults of the query with concurrent page requests, see BulkBookLoader
+    public BookRequest submitBulk(final String url, final int totalResults, Callback callback) {
+        return execute(new BookRequest(url, generation.get()), callback, new Loader() {
+            @Override
+            public BookResult load(BookRequest request) {
+                return BulkBookLoader.load(url, totalResults, request);
+            }
+        });
+    }
+
+    //Answers the query from the books stored on the device
+    public BookRequest submitLocal(final String query, final int offset, final int limit, Callback callback) {
+        return execute(new BookRequest(query, generation.get()), callback, new Loader() {
+            @Override
+            public BookResult load(BookRequest request) {
+                BookStore store = BookStore.getInstance();
+                return BookResult.of(store != null ? store.search(query, offset, limit) : new ArrayList<Book>());
+            }
+        });
+    }
+
+    private interface Loader {
+        BookResult load(BookRequest request);
+    }
+
+    private BookRequest execute(final BookRequest request, final Callback callback, final Loader loader) {
+        synchronized (inFlight) {
+            inFlight.add(request);
+        }
+        Future<?> future;
+        try {
+            future = EXECUTOR.submit(new Runnable() {
+                @Override
+                public void run() {
+                    if (request.isCancelled()) {
+                        return;
+                    }
+                    deliver(request, callback, loader.load(request));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //the queue is full of live requests: fail this one visibly, the caller can ask again later
+            Log.w(TAG, "execute: too many requests queued, rejected " + request.getUrl());
+            deliver(request, callback, BookResult.failed(true));
+            return request;
+        }
+        request.setFuture(future);
+        return request;
+    }
+
+    private void deliver(final BookRequest request, final Callback callback, final BookResult result) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                finish(request);
+                if (!request.isCancelled() && request.getGeneration() == generation.get()) {
+                    callback.onBooksLoaded(result);
+                }
+            }
+        });
+    }
+
+    public void cancelAll() {
+        synchronized (inFlight) {
+            Iterator<BookRequest> iterator = inFlight.iterator();
+            while (iterator.hasNext()) {
+                iterator.next().cancel();
+                iterator.remove();
+            }
+        }
+        //cancelled requests that never started would hold their queue slots until a thread got to them
+        EXECUTOR.purge();
+    }
+
+    private void finish(BookRequest request) {
+        synchronized (inFlight) {
+            inFlight.remove(request);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.booklistingapp;
+
+import java.util.ArrayList;
+
+//Outcome of a page request: failures are told apart from a page with no (more) results
+public class BookResult {
+    public enum Status {
+        SUCCESS,
+        // The query has no results past this index
+        EMPTY,
+        // The server asked us to slow down, see getRetryAfter
+        RATE_LIMITED,
+        FAILED
+    }
+
+    private final Status status;
+    private final ArrayList<Book> books;
+    private final long retryAfter;
+    private final boolean retryable;
+    private final int nextStartIndex;
+
+    private BookResult(Status status, ArrayList<Book> books, long retryAfter, boolean retryable, int nextStartIndex) {
+        this.status = status;
+        this.books = books;
+        this.retryAfter = retryAfter;
+        this.retryable = retryable;
+        this.nextStartIndex = nextStartIndex;
+    }
+
+    public static BookResult of(ArrayList<Book> books) {
+        return new BookResult(books.isEmpty() ? Status.EMPTY : Status.SUCCESS, books, 0, false, -1);
+    }
+
+    //The books before a failed page of a bulk load, paging has to go on from nextStartIndex
+    public static BookResult partial(ArrayList<Book> books, int nextStartIndex) {
+        return new BookResult(Status.SUCCESS, books, 0, false, nextStartIndex);
+    }
+
+    public static BookResult rateLimited(long retryAfter) {
+        return new BookResult(Status.RATE_LIMITED, new ArrayList<Book>(), retryAfter, true, -1);
+    }
+
+    //retryable is false when sending the same request again can't help (bad request, unparsable body, cancelled)
+    public static BookResult failed(boolean retryable) {
+        return new BookResult(Status.FAILED, new ArrayList<Book>(), 0, retryable, -1);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    //Never null, empty unless the status is SUCCESS
+    public ArrayList<Book> getBooks() {
+        return books;
+    }
+
+    //Milliseconds the server asked to wait, 0 if it didn't say
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    //Index of the first result a partial bulk load didn't return, -1 when it returned everything it was asked for
+    public int getNextStartIndex() {
+        return nextStartIndex;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    //True for SUCCESS and EMPTY, the request itself went through
+    public boolean isLoaded() {
+        return status == Status.SUCCESS || status == Status.EMPTY;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.booklistingapp;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+
+//Book row in one measure pass: the first child is a fixed size thumbnail centered vertically at the start,
+//the others are stacked in a column beside it. Children take the column width, GONE ones are skipped.
+//A weighted LinearLayout nested in another measures its children twice per row.
+public class BookRowLayout extends ViewGroup {
+    private long measureNanos;
+
+    public BookRowLayout(Context context) {
+        super(context);
+    }
+
+    public BookRowLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+
+        View thumbnail = getChildAt(0);
+        MarginLayoutParams thumbnailParams = (MarginLayoutParams) thumbnail.getLayoutParams();
+        thumbnail.measure(MeasureSpec.makeMeasureSpec(thumbnailParams.width, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(thumbnailParams.height, MeasureSpec.EXACTLY));
+        int thumbnailWidth = thumbnail.getMeasuredWidth() + thumbnailParams.getMarginStart() + thumbnailParams.getMarginEnd();
+        int thumbnailHeight = thumbnail.getMeasuredHeight() + thumbnailParams.topMargin + thumbnailParams.bottomMargin;
+
+        int columnWidth = Math.max(0, width - getPaddingStart() - getPaddingEnd() - thumbnailWidth);
+        int columnHeight = 0;
+        for (int i = 1; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            MarginLayoutParams params = (MarginLayoutParams) child.getLayoutParams();
+            int childWidth = columnWidth - params.getMarginStart() - params.getMarginEnd();
+            child.measure(MeasureSpec.makeMeasureSpec(Math.max(0, childWidth), MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+            columnHeight += child.getMeasuredHeight() + params.topMargin + params.bottomMargin;
+        }
+
+        int height = Math.max(thumbnailHeight, columnHeight) + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+        if (Metrics.ENABLED) {
+            measureNanos = System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        boolean rtl = getLayoutDirection() == LAYOUT_DIRECTION_RTL;
+        int width = r - l;
+        int height = b - t;
+
+        View thumbnail = getChildAt(0);
+        MarginLayoutParams thumbnailParams = (MarginLayoutParams) thumbnail.getLayoutParams();
+        int thumbnailStart = getPaddingStart() + thumbnailParams.getMarginStart();
+        int thumbnailTop = getPaddingTop()
+                + (height - getPaddingTop() - getPaddingBottom() - thumbnail.getMeasuredHeight()) / 2;
+        layoutChild(thumbnail, thumbnailStart, thumbnailTop, width, rtl);
+
+        int columnStart = thumbnailStart + thumbnail.getMeasuredWidth() + thumbnailParams.getMarginEnd();
+        int top = getPaddingTop();
+        for (int i = 1; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            MarginLayoutParams params = (MarginLayoutParams) child.getLayoutParams();
+            top += params.topMargin;
+            layoutChild(child, columnStart + params.getMarginStart(), top, width, rtl);
+            top += child.getMeasuredHeight() + params.bottomMargin;
+        }
+
+        if (Metrics.ENABLED) {
+            //a layout without a new measure only pays for itself
+            Metrics.ROW_LAYOUT.recordNanos(measureNanos + System.nanoTime() - start);
+            measureNanos = 0;
+        }
+    }
+
+    //Positions are worked out from the start edge and mirrored for right to left layouts
+    private static void layoutChild(View child, int start, int top, int width, boolean rtl) {
+        int childWidth = child.getMeasuredWidth();
+        if (rtl) {
+            start = width - start - childWidth;
+        }
+        child.layout(start, top, start + childWidth, top + child.getMeasuredHeight());
+    }
+
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        return false;
+    }
+
+    @Override
+    public LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new MarginLayoutParams(getContext(), attrs);
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new MarginLayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    protected LayoutParams generateLayoutParams(LayoutParams p) {
+        return new MarginLayoutParams(p);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(LayoutParams p) {
+        return p instanceof MarginLayoutParams;
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.booklistingapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//Local copy of every book downloaded so far, full-text searchable when offline
+public class BookStore extends SQLiteOpenHelper {
+    private static final String TAG = "BookStore";
+    private static final String DATABASE_NAME = "books.db";
+    private static final int DATABASE_VERSION = 2;
+    // Least recently seen volumes are evicted above this many books
+    private static final int MAX_BOOKS = 20000;
+    private static final String AUTHOR_SEPARATOR = "\n";
+    // Writes are queued here in order, so storing a page never holds up the request that downloaded it
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(
+            BookRequestScheduler.threadFactory("BookStore"));
+
+    private static BookStore instance;
+
+    private final int maxBooks;
+
+    //name null keeps the database in memory
+    BookStore(Context context, String name, int maxBooks) {
+        super(context, name, null, DATABASE_VERSION);
+        this.maxBooks = maxBooks;
+    }
+
+    public static synchronized void init(Context context) {
+        if (instance == null) {
+            instance = new BookStore(context.getApplicationContext(), DATABASE_NAME, MAX_BOOKS);
+        }
+    }
+
+    //null until init has been called
+    public static synchronized BookStore getInstance() {
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE books ("
+                + "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "volume_id TEXT NOT NULL UNIQUE, "
+                + "title TEXT NOT NULL, "
+                + "authors TEXT, "
+                + "description TEXT, "
+                + "published_date INTEGER, "
+                + "page_count INTEGER NOT NULL, "
+                + "image_url TEXT, "
+                + "last_seen INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX books_last_seen ON books (last_seen)");
+        // docid of a row is the _id of its book
+        db.execSQL("CREATE VIRTUAL TABLE books_fts USING fts4 (title, authors, description)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS books_fts");
+        db.execSQL("DROP TABLE IF EXISTS books");
+        onCreate(db);
+    }
+
+    //Queues save on the store's writer thread and returns right away
+    public void saveAsync(List<Book> books) {
+        final List<Book> copy = new ArrayList<>(books);
+        WRITER.execute(new Runnable() {
+            @Override
+            public void run() {
+                save(copy);
+            }
+        });
+    }
+
+    //Inserts or refreshes the books, call it from a worker thread
+    public void save(List<Book> books) {
+        long now = System.currentTimeMillis();
+        SQLiteDatabase db;
+        try {
+            db = getWritableDatabase();
+        } catch (SQLiteException e) {
+            Log.e(TAG, "save: could not open the database", e);
+            return;
+        }
+        try (SQLiteStatement findBook = db.compileStatement("SELECT _id FROM books WHERE volume_id = ?");
+             SQLiteStatement insertBook = db.compileStatement("INSERT INTO books "
+                     + "(volume_id, title, authors, description, published_date, page_count, image_url, last_seen) "
+                     + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+             SQLiteStatement updateBook = db.compileStatement("UPDATE books SET "
+                     + "title = ?, authors = ?, description = ?, published_date = ?, page_count = ?, image_url = ?, last_seen = ? "
+                     + "WHERE _id = ?");
+             SQLiteStatement replaceText = db.compileStatement("INSERT OR REPLACE INTO books_fts "
+                     + "(docid, title, authors, description) VALUES (?, ?, ?, ?)")) {
+            db.beginTransaction();
+            try {
+                for (Book book : books) {
+                    if (book == null || book.getId() == null) {
+                        continue;
+                    }
+                    String authors = book.getAuthors() != null ? TextUtils.join(AUTHOR_SEPARATOR, book.getAuthors()) : null;
+
+                    long rowId;
+                    findBook.bindString(1, book.getId());
+                    try {
+                        rowId = findBook.simpleQueryForLong();
+                        bindBook(updateBook, 1, book, authors);
+                        updateBook.bindLong(7, now);
+                        updateBook.bindLong(8, rowId);
+                        updateBook.executeUpdateDelete();
+                    } catch (SQLiteDoneException e) {
+                        insertBook.bindString(1, book.getId());
+                        bindBook(insertBook, 2, book, authors);
+                        insertBook.bindLong(8, now);
+                        rowId = insertBook.executeInsert();
+                    }
+
+                    replaceText.bindLong(1, rowId);
+                    replaceText.bindString(2, book.getTitle());
+                    bindNullable(replaceText, 3, authors);
+                    bindNullable(replaceText, 4, book.getDescription());
+                    replaceText.execute();
+                }
+                evict(db);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLiteException e) {
+            Log.e(TAG, "save: could not store the books", e);
+        }
+    }
+
+    //Binds title, authors, description, published date, page count and image url starting at index
+    private static void bindBook(SQLiteStatement statement, int index, Book book, String authors) {
+        statement.bindString(index, book.getTitle());
+        bindNullable(statement, index + 1, authors);
+        bindNullable(statement, index + 2, book.getDescription());
+        if (book.getPublishedDate() != BookDate.NONE) {
+            statement.bindLong(index + 3, book.getPublishedDate());
+        } else {
+            statement.bindNull(index + 3);
+        }
+        statement.bindLong(index + 4, book.getPageCount());
+        bindNullable(statement, index + 5, book.getImageURL());
+    }
+
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        } else {
+            statement.bindNull(index);
+        }
+    }
+
+    private void evict(SQLiteDatabase db) {
+        long excess = DatabaseUtils.queryNumEntries(db, "books") - maxBooks;
+        if (excess <= 0) {
+            return;
+        }
+        String oldest = "SELECT _id FROM books ORDER BY last_seen LIMIT " + excess;
+        db.execSQL("DELETE FROM books_fts WHERE docid IN (" + oldest + ")");
+        db.execSQL("DELETE FROM books WHERE _id IN (" + oldest + ")");
+    }
+
+    //One page of the stored books matching the query, most recently seen first
+    public ArrayList<Book> search(String query, int offset, int limit) {
+        ArrayList<Book> books = new ArrayList<>();
+        String match = toMatchExpression(query);
+        if (match.isEmpty()) {
+            return books;
+        }
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT b.volume_id, b.title, b.authors, b.description, "
+                        + "b.published_date, b.page_count, b.image_url "
+                        + "FROM books_fts f JOIN books b ON b._id = f.docid "
+                        + "WHERE books_fts MATCH ? ORDER BY b.last_seen DESC LIMIT ? OFFSET ?",
+                new String[]{match, String.valueOf(limit), String.valueOf(offset)})) {
+            while (cursor.moveToNext()) {
+                List<String> authors = cursor.isNull(2) ? null : Arrays.asList(cursor.getString(2).split(AUTHOR_SEPARATOR));
+                int publishedDate = cursor.isNull(4) ? BookDate.NONE : cursor.getInt(4);
+                books.add(new Book(cursor.getString(0), cursor.getString(1), authors,
+                        cursor.isNull(3) ? "" : cursor.getString(3), publishedDate, cursor.getInt(5),
+                        cursor.isNull(6) ? "" : cursor.getString(6)));
+            }
+        } catch (SQLiteException e) {
+            Log.e(TAG, "search: query failed for " + query, e);
+        }
+        BookTextPrecomputer.precompute(books);
+        return books;
+    }
+
+    //"Harry pot" -> "harry* pot*", every word has to prefix-match a token
+    static String toMatchExpression(String query) {
+        StringBuilder match = new StringBuilder();
+        for (String term : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(term).append('*');
+        }
+        return match.toString();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.booklistingapp;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+
+import java.util.List;
+
+//Measures titles and descriptions on the worker thread so the row TextViews skip text layout work on bind
+public class BookTextPrecomputer {
+    // text_description shows at most 4 lines, nothing past this prefix can be visible
+    static final int MAX_DESCRIPTION_LENGTH = 400;
+
+    private static volatile PrecomputedTextCompat.Params titleParams;
+    private static volatile PrecomputedTextCompat.Params descriptionParams;
+
+    //Reads the text params from an unattached row, must be called on the main thread
+    public static void init(Context context) {
+        if (titleParams != null) {
+            return;
+        }
+        View row = LayoutInflater.from(context).inflate(R.layout.item_book, null, false);
+        TextView title = row.findViewById(R.id.text_title);
+        TextView description = row.findViewById(R.id.text_description);
+        descriptionParams = TextViewCompat.getTextMetricsParams(description);
+        titleParams = TextViewCompat.getTextMetricsParams(title);
+    }
+
+    public static void precompute(List<Book> books) {
+        PrecomputedTextCompat.Params titleParams = BookTextPrecomputer.titleParams;
+        PrecomputedTextCompat.Params descriptionParams = BookTextPrecomputer.descriptionParams;
+        if (titleParams == null || descriptionParams == null) {
+            return;
+        }
+        for (Book book : books) {
+            if (book.getTitleText() instanceof PrecomputedTextCompat) {
+                continue;
+            }
+            CharSequence description = book.getDescriptionText();
+            book.setDisplayText(PrecomputedTextCompat.create(book.getTitleText(), titleParams),
+                    description.length() > 0 ? PrecomputedTextCompat.create(description, descriptionParams) : description);
+        }
+    }
+
+    //Falls back to plain text if the view's params changed since the text was measured
+    public static void setText(TextView textView, CharSequence text) {
+        if (text instanceof PrecomputedTextCompat) {
+            try {
+                TextViewCompat.setPrecomputedText(textView, (PrecomputedTextCompat) text);
+                return;
+            } catch (IllegalArgumentException e) {
+                text = text.toString();
+            }
+        }
+        textView.setText(text);
+    }
+
+    static String trimDescription(String description) {
+        if (description == null || description.length() <= MAX_DESCRIPTION_LENGTH) {
+            return description;
+        }
+        int end = description.lastIndexOf(' ', MAX_DESCRIPTION_LENGTH);
+        return description.substring(0, end > 0 ? end : MAX_DESCRIPTION_LENGTH) + "\u2026";
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.booklistingapp;
 
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.text.TextUtils;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,48 +13,113 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.squareup.picasso.Picasso;
-
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class BooksAdapter extends RecyclerView.Adapter {
-    private final int VIEW_ITEM = 1;
-    private final int VIEW_PROG = 0;
+    static final int VIEW_ITEM = 1;
+    static final int VIEW_PROG = 0;
     private static final String TAG = "BooksAdapter";
     private List<Book> books;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int listVersion;
+    // Lists longer than this are replaced without diffing
+    private static final int MAX_DIFF_SIZE = 200;
+    // Its own thread: on the request pool a diff would queue behind page fetches and their backoff sleeps
+    private static final ExecutorService DIFF_EXECUTOR =
+            Executors.newSingleThreadExecutor(BookRequestScheduler.threadFactory("BookDiff"));
+    private boolean swapping;
+    // Target of the diff in flight, applied at once if the adapter is detached before it lands
+    private List<Book> pendingBooks;
 
     // The minimum amount of items to have below your current scroll position
     // before loadingMore more.
     private int visibleThreshold = 5;
+    // Pages are prefetched once the user gets this close to the end,
+    // two pages ahead when flinging faster than FAST_FLING_VELOCITY (px/ms).
+    private int prefetchThreshold = 15;
+    private static final float FAST_FLING_VELOCITY = 3f;
     private int lastVisibleItem, totalItemCount;
+    private long lastScrollTime;
     private boolean loadingMore;
     private boolean loadedAllData;
     private OnLoadMoreListener onLoadMoreListener;
+    private OnPrefetchListener onPrefetchListener;
+    private OnAuthorClickListener onAuthorClickListener;
+    private final Context context;
+    // Created on the first thumbnail, so Picasso and its disk cache aren't set up before the first frame
+    private BookImageLoader imageLoader;
+    // Follows the list, so the loaded books can be re-sorted and filtered without a new query
+    private final BookIndex index;
+    private BookIndex.Filter filter = BookIndex.Filter.NONE;
+    // List positions shown in filter order, null while the list is shown as loaded
+    private int[] rows;
 
     public BooksAdapter(List<Book> books, RecyclerView recyclerView) {
+        this(books, new BookIndex(), recyclerView);
+    }
+
+    public BooksAdapter(List<Book> books, BookIndex index, RecyclerView recyclerView) {
         this.books = books;
+        this.index = index;
+        if (index.size() == 0) {
+            index.addAll(books);
+        }
+        this.context = recyclerView.getContext();
 
         if (recyclerView.getLayoutManager() instanceof LinearLayoutManager) {
             final LinearLayoutManager linearLayoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
             recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                    if (imageLoader == null) {
+                        return;
+                    }
+                    if (newState == RecyclerView.SCROLL_STATE_SETTLING) {
+                        imageLoader.pause();
+                    } else {
+                        imageLoader.resume();
+                    }
+                }
+
                 @Override
                 public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
                     super.onScrolled(recyclerView, dx, dy);
 
-                    if (loadedAllData) {
+                    if (books instanceof WindowedBookList) {
+                        int firstVisible = linearLayoutManager.findFirstVisibleItemPosition();
+                        int lastVisible = linearLayoutManager.findLastVisibleItemPosition();
+                        if (rows != null) {
+                            //a filtered view shows rows from anywhere in the list, the window follows their positions
+                            ((WindowedBookList) books).setViewport(rows, firstVisible, lastVisible);
+                        } else {
+                            ((WindowedBookList) books).setViewport(firstVisible, lastVisible);
+                        }
+                    }
+
+                    //filters only apply to the books loaded so far, a short filtered list shouldn't keep paging
+                    if (loadedAllData || swapping || rows != null) {
                         return;
                     }
 
                     totalItemCount = linearLayoutManager.getItemCount();
                     lastVisibleItem = linearLayoutManager.findLastVisibleItemPosition();
 
+                    long now = SystemClock.uptimeMillis();
+                    float velocity = now > lastScrollTime ? (float) dy / (now - lastScrollTime) : 0;
+                    lastScrollTime = now;
+
+                    if (onPrefetchListener != null && dy > 0 && totalItemCount <= (lastVisibleItem + prefetchThreshold)) {
+                        onPrefetchListener.onPrefetch(velocity > FAST_FLING_VELOCITY ? 2 : 1);
+                    }
+
                     if (!loadingMore && totalItemCount <= (lastVisibleItem + visibleThreshold)) {
                         // End has been reached
                         if (onLoadMoreListener != null) {
@@ -66,7 +134,18 @@ public class BooksAdapter extends RecyclerView.Adapter {
 
     @Override
     public int getItemViewType(int position) {
-        return books.get(position) != null ? VIEW_ITEM : VIEW_PROG;
+        return getBook(position) != null ? VIEW_ITEM : VIEW_PROG;
+    }
+
+    private BookImageLoader imageLoader() {
+        if (imageLoader == null) {
+            imageLoader = BookImageLoader.get(context);
+        }
+        return imageLoader;
+    }
+
+    private Book getBook(int position) {
+        return books.get(rows != null ? rows[position] : position);
     }
 
     @NonNull
@@ -76,7 +155,21 @@ public class BooksAdapter extends RecyclerView.Adapter {
 
         if (viewType == VIEW_ITEM) {
             View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_book, parent, false);
-            vh = new BookViewHolder(v);
+            final BookViewHolder holder = new BookViewHolder(v);
+            holder.authors.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View view) {
+                    int position = holder.getAdapterPosition();
+                    if (onAuthorClickListener == null || position == RecyclerView.NO_POSITION) {
+                        return;
+                    }
+                    Book book = getBook(position);
+                    if (book != null && book.getAuthors() != null && !book.getAuthors().isEmpty()) {
+                        onAuthorClickListener.onAuthorClick(book.getAuthors().get(0));
+                    }
+                }
+            });
+            vh = holder;
         } else {
             View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.progressbar, parent, false);
             vh = new ProgressViewHolder(v);
@@ -88,66 +181,139 @@ public class BooksAdapter extends RecyclerView.Adapter {
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder viewHolder, int position) {
         if (viewHolder instanceof BookViewHolder) {
+            long bindStart = Metrics.BIND.begin();
             BookViewHolder holder = (BookViewHolder) viewHolder;
-            Book currentBook = books.get(position);
+            Book currentBook = getBook(position);
 
-            holder.title.setText(currentBook.getTitle());
-            if (currentBook.getAuthors() != null) {
+            BookTextPrecomputer.setText(holder.title, currentBook.getTitleText());
+            if (currentBook.getAuthorsText() != null) {
                 holder.authors.setVisibility(View.VISIBLE);
-                holder.authors.setText("Author: " + extractAuthors(currentBook.getAuthors()));
+                holder.authors.setText(currentBook.getAuthorsText());
             } else {
                 holder.authors.setVisibility(View.GONE);
             }
 
             if (!TextUtils.isEmpty(currentBook.getImageURL())) {
-                Picasso.get().load(currentBook.getImageURL()).into(holder.image);
+                imageLoader().load(currentBook.getImageURL(), holder.image);
+                holder.showingPlaceholder = false;
             } else {
-                Log.i(TAG, "getView: no image");
-                //set default image
+                if (imageLoader != null) {
+                    imageLoader.cancel(holder.image);
+                }
+                //setImageResource loads the drawable again even when it is the one already shown
+                if (!holder.showingPlaceholder) {
+                    holder.image.setImageResource(R.mipmap.ic_launcher);
+                    holder.showingPlaceholder = true;
+                }
             }
 
-            if (currentBook.getPageCount() != Book.INT_FIELD_NOT_PROVIDED) {
+            if (currentBook.getPageCountText() != null) {
                 holder.pageCount.setVisibility(View.VISIBLE);
-                holder.pageCount.setText("Pages: " + currentBook.getPageCount());
+                holder.pageCount.setText(currentBook.getPageCountText());
             } else {
                 holder.pageCount.setVisibility(View.GONE);
             }
 
-            if (currentBook.getPublishedDate() != null) {
+            if (currentBook.getPublishedDateText() != null) {
                 holder.publishedDate.setVisibility(View.VISIBLE);
-                String date = dateToString(currentBook.getPublishedDate(), "dd/MM/yyyy");
-                holder.publishedDate.setText("Published: " + date);
+                holder.publishedDate.setText(currentBook.getPublishedDateText());
             } else {
                 holder.publishedDate.setVisibility(View.GONE);
             }
 
-            if (!TextUtils.isEmpty(currentBook.getDescription())) {
+            if (!TextUtils.isEmpty(currentBook.getDescriptionText())) {
                 holder.description.setVisibility(View.VISIBLE);
-                holder.description.setText(currentBook.getDescription());
+                BookTextPrecomputer.setText(holder.description, currentBook.getDescriptionText());
             } else {
                 holder.description.setVisibility(View.GONE);
             }
+            Metrics.BIND.end(bindStart);
         } else {
             ((ProgressViewHolder) viewHolder).progressBar.setIndeterminate(true);
         }
     }
 
+    @Override
+    public void onViewRecycled(@NonNull RecyclerView.ViewHolder viewHolder) {
+        if (viewHolder instanceof BookViewHolder && imageLoader != null) {
+            imageLoader.cancel(((BookViewHolder) viewHolder).image);
+        }
+    }
+
     @Override
     public int getItemCount() {
-        return books.size();
+        return rows != null ? rows.length : books.size();
     }
 
     public void setLoaded() {
         loadingMore = false;
     }
 
+    //A recreated adapter over the same list picks up a load more that is still in flight
+    public void setLoadingMore() {
+        loadingMore = true;
+    }
+
+    //The list outlives this adapter, so a diff still being calculated is applied to it now
+    public void detach() {
+        finishSwap();
+    }
+
+    private void finishSwap() {
+        if (!swapping) {
+            return;
+        }
+        ++listVersion;
+        books.clear();
+        books.addAll(pendingBooks);
+        index.clear();
+        index.addAll(books);
+        pendingBooks = null;
+        swapping = false;
+    }
+
+    //Re-sorts and filters the loaded books from the index, nothing is fetched
+    public void setFilter(BookIndex.Filter filter) {
+        finishSwap();
+        this.filter = filter;
+        rows = filter.isNone() ? null : index.apply(filter);
+        notifyDataSetChanged();
+    }
+
+    public BookIndex.Filter getFilter() {
+        return filter;
+    }
+
+    //Number of loaded books, which may be more than the rows a filter shows
+    public int getLoadedCount() {
+        return index.size();
+    }
+
+    private void refreshFilter() {
+        rows = index.apply(filter);
+        notifyDataSetChanged();
+    }
+
     public void setOnLoadMoreListener(OnLoadMoreListener onLoadMoreListener) {
         this.onLoadMoreListener = onLoadMoreListener;
     }
 
+    public void setOnPrefetchListener(OnPrefetchListener onPrefetchListener) {
+        this.onPrefetchListener = onPrefetchListener;
+    }
+
+    public void setOnAuthorClickListener(OnAuthorClickListener onAuthorClickListener) {
+        this.onAuthorClickListener = onAuthorClickListener;
+    }
+
     public void clear() {
+        int count = getItemCount();
         books.clear();
-        notifyDataSetChanged();
+        index.clear();
+        if (rows != null) {
+            rows = new int[0];
+        }
+        notifyItemRangeRemoved(0, count);
     }
 
     public static class BookViewHolder extends RecyclerView.ViewHolder {
@@ -158,6 +324,8 @@ public class BooksAdapter extends RecyclerView.Adapter {
         private TextView pageCount;
         private TextView publishedDate;
         private ImageView image;
+        // Whether image shows R.mipmap.ic_launcher, set by the bind of a book without a thumbnail
+        private boolean showingPlaceholder;
 
         BookViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -171,6 +339,43 @@ public class BooksAdapter extends RecyclerView.Adapter {
         }
     }
 
+    private static class BookDiffCallback extends DiffUtil.Callback {
+        private final List<Book> oldBooks;
+        private final List<Book> newBooks;
+
+        BookDiffCallback(List<Book> oldBooks, List<Book> newBooks) {
+            this.oldBooks = oldBooks;
+            this.newBooks = newBooks;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldBooks.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newBooks.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            Book oldBook = oldBooks.get(oldItemPosition);
+            Book newBook = newBooks.get(newItemPosition);
+            if (oldBook == null || newBook == null) {
+                return oldBook == newBook;
+            }
+            return oldBook.getId() != null && oldBook.getId().equals(newBook.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            Book oldBook = oldBooks.get(oldItemPosition);
+            Book newBook = newBooks.get(newItemPosition);
+            return oldBook == newBook || (oldBook != null && oldBook.hasSameContents(newBook));
+        }
+    }
+
     public static class ProgressViewHolder extends RecyclerView.ViewHolder {
         public ProgressBar progressBar;
 
@@ -180,42 +385,100 @@ public class BooksAdapter extends RecyclerView.Adapter {
         }
     }
 
-    private String dateToString(Date date, String pattern) {
-        DateFormat df = new SimpleDateFormat(pattern);
-        return df.format(date);
-    }
-
-    private String extractAuthors(List<String> authors) {
-        StringBuilder authorsString = new StringBuilder();
-        for (int i = 0; i < authors.size(); i++) {
-            authorsString.append(authors.get(i));
-            if (i != authors.size() - 1) {
-                authorsString.append(", ");
-            }
-        }
-        return authorsString.toString();
-    }
-
     public void addItems(List<Book> list) {
+        int start = books.size();
         books.addAll(list);
-        notifyDataSetChanged();
+        index.addAll(list);
+        if (rows != null) {
+            refreshFilter();
+        } else {
+            notifyItemRangeInserted(start, list.size());
+        }
     }
 
+    //null adds the progress row, which a filtered view doesn't show
     public void addItem(Book book) {
         books.add(book);
-        notifyItemInserted(books.size() - 1);
+        if (book != null) {
+            index.addAll(Collections.singletonList(book));
+        }
+        if (rows != null) {
+            refreshFilter();
+        } else {
+            notifyItemInserted(books.size() - 1);
+        }
+    }
+
+    public boolean isShowingProgress() {
+        return !books.isEmpty() && books.get(books.size() - 1) == null;
     }
 
+    //Only used for the progress row, which isn't indexed
     public void removeLastItem() {
         books.remove(books.size() - 1);
-        notifyItemRemoved(books.size());
+        if (rows == null) {
+            notifyItemRemoved(books.size());
+        }
     }
 
-    public void swapList(ArrayList<Book> books) {
-        this.books.clear();
-        this.books.addAll(books);
-        notifyDataSetChanged();
+    //Diffs against the current list off the main thread, so rows of books in both lists are kept
+    public void swapList(final ArrayList<Book> books) {
+        if (this.books.size() > MAX_DIFF_SIZE || rows != null) {
+            //diffing a long session isn't worth reading every released page back, replace it outright.
+            //A filtered view is rebuilt from the index instead of diffed.
+            ++listVersion;
+            int oldSize = getItemCount();
+            this.books.clear();
+            this.books.addAll(books);
+            index.clear();
+            index.addAll(books);
+            if (rows != null) {
+                refreshFilter();
+            } else {
+                notifyItemRangeRemoved(0, oldSize);
+                notifyItemRangeInserted(0, books.size());
+            }
+            swapping = false;
+            pendingBooks = null;
+            loadedAllData = false;
+            return;
+        }
+
+        final List<Book> oldBooks = new ArrayList<>(this.books);
+        final int version = ++listVersion;
+        swapping = true;
+        pendingBooks = books;
         loadedAllData = false;
+
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(new BookDiffCallback(oldBooks, books));
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (version != listVersion) {
+                            return;
+                        }
+                        BooksAdapter.this.books.clear();
+                        BooksAdapter.this.books.addAll(books);
+                        index.clear();
+                        index.addAll(books);
+                        diffResult.dispatchUpdatesTo(BooksAdapter.this);
+                        swapping = false;
+                        pendingBooks = null;
+                    }
+                });
+            }
+        });
+    }
+
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public boolean isLoadedAllData() {
+        return loadedAllData;
     }
 
     public boolean isLoadingMore() {
@@ -0,0 +1,21 @@
+package com.example.booklistingapp;
+
+import android.app.Application;
+
+import androidx.annotation.NonNull;
+import androidx.work.Configuration;
+
+//Only marks the process start, initialization is left to first use. WorkManager too: its start up provider
+//is removed in the manifest, it initializes from this configuration when CacheWarmUpWorker first schedules.
+public class BooksApplication extends Application implements Configuration.Provider {
+
+    public BooksApplication() {
+        StartupTimer.onProcessStart();
+    }
+
+    @NonNull
+    @Override
+    public Configuration getWorkManagerConfiguration() {
+        return new Configuration.Builder().build();
+    }
+}
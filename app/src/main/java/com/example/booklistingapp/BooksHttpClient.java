@@ -0,0 +1,53 @@
+package com.example.booklistingapp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+//Network layer used by QueryUtils, swap it with QueryUtils.setHttpClient
+public interface BooksHttpClient {
+
+    //Sends a GET. The caller must close the response to give the connection back to the pool.
+    Response get(URL url, Map<String, String> headers, BookRequest request) throws IOException;
+
+    class Response implements Closeable {
+        private final int code;
+        private final Map<String, List<String>> headers;
+        private final InputStream body;
+
+        public Response(int code, Map<String, List<String>> headers, InputStream body) {
+            this.code = code;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        //First value of the header, names are matched ignoring case
+        public String getHeader(String name) {
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                    return header.getValue().get(0);
+                }
+            }
+            return null;
+        }
+
+        //Decoded body, null for responses without one
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (body != null) {
+                body.close();
+            }
+        }
+    }
+}
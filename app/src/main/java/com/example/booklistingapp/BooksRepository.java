@@ -0,0 +1,104 @@
+package com.example.booklistingapp;
+
+import android.os.Bundle;
+
+//Search state and paging of the current query, online or answered from the local store when offline
+public class BooksRepository {
+    // Page size of offline results
+    static final int LOCAL_PAGE_SIZE = 10;
+
+    private static final String STATE_QUERY_URL = "query_url";
+    private static final String STATE_PAGE_SIZE = "page_size";
+    private static final String STATE_OFFLINE_QUERY = "offline_query";
+    private static final String STATE_OFFLINE_OFFSET = "offline_offset";
+    private static final String STATE_NEXT_START_INDEX = "next_start_index";
+
+    private final BookRequestScheduler scheduler = new BookRequestScheduler();
+    private final PagePrefetcher prefetcher = new PagePrefetcher(scheduler);
+
+    private String initialQueryUrl;
+    // Books per online page, chosen by BooksQuery.pageSizeFor when a search starts
+    private int pageSize = LOCAL_PAGE_SIZE;
+    // Set while results come from the local store because the device is offline
+    private String offlineQuery;
+    private int offlineOffset;
+
+    //Starts a new search; more than one page of results is fetched as parallel page requests
+    public void search(BooksQuery query, int results, final BookRequestScheduler.Callback callback) {
+        offlineQuery = null;
+        pageSize = query.getMaxResults();
+        initialQueryUrl = query.toUrl();
+        scheduler.newSearch();
+        prefetcher.reset(initialQueryUrl, pageSize, Math.max(results, pageSize));
+
+        if (results > pageSize) {
+            scheduler.submitBulk(query.toUrlWithoutPaging(), results, new BookRequestScheduler.Callback() {
+                @Override
+                public void onBooksLoaded(BookResult result) {
+                    if (result.getNextStartIndex() >= 0) {
+                        //a page of the bulk load failed, load more asks for it again
+                        prefetcher.resumeAt(result.getNextStartIndex());
+                    }
+                    callback.onBooksLoaded(result);
+                }
+            });
+        } else {
+            scheduler.submit(initialQueryUrl, callback);
+        }
+    }
+
+    //Answers the search from the books stored on the device
+    public void searchOffline(String query, BookRequestScheduler.Callback callback) {
+        offlineQuery = query;
+        offlineOffset = LOCAL_PAGE_SIZE;
+        scheduler.newSearch();
+        prefetcher.reset(null, LOCAL_PAGE_SIZE, LOCAL_PAGE_SIZE);
+        scheduler.submitLocal(query, 0, LOCAL_PAGE_SIZE, callback);
+    }
+
+    //Returns true when the page was already staged, false when it has to be waited for
+    public boolean loadNextPage(BookRequestScheduler.Callback callback) {
+        if (offlineQuery != null) {
+            scheduler.submitLocal(offlineQuery, offlineOffset, LOCAL_PAGE_SIZE, callback);
+            offlineOffset += LOCAL_PAGE_SIZE;
+            return false;
+        }
+        return prefetcher.loadNextPage(callback);
+    }
+
+    public void prefetch(int pagesAhead) {
+        prefetcher.prefetch(pagesAhead);
+    }
+
+    public boolean isOffline() {
+        return offlineQuery != null;
+    }
+
+    public void cancelAll() {
+        scheduler.cancelAll();
+    }
+
+    //A page that was still loading is requested again after restoring
+    public void saveState(Bundle outState, boolean pendingPage) {
+        outState.putString(STATE_QUERY_URL, initialQueryUrl);
+        outState.putInt(STATE_PAGE_SIZE, pageSize);
+        outState.putString(STATE_OFFLINE_QUERY, offlineQuery);
+        outState.putInt(STATE_OFFLINE_OFFSET, offlineOffset - (pendingPage ? LOCAL_PAGE_SIZE : 0));
+        outState.putInt(STATE_NEXT_START_INDEX, prefetcher.getNextStartIndex() - (pendingPage ? pageSize : 0));
+    }
+
+    public void restoreState(Bundle savedInstanceState) {
+        initialQueryUrl = savedInstanceState.getString(STATE_QUERY_URL);
+        pageSize = savedInstanceState.getInt(STATE_PAGE_SIZE, LOCAL_PAGE_SIZE);
+        offlineQuery = savedInstanceState.getString(STATE_OFFLINE_QUERY);
+        offlineOffset = savedInstanceState.getInt(STATE_OFFLINE_OFFSET);
+        if (initialQueryUrl != null && offlineQuery == null) {
+            prefetcher.reset(initialQueryUrl, pageSize, savedInstanceState.getInt(STATE_NEXT_START_INDEX));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return prefetcher.toString();
+    }
+}
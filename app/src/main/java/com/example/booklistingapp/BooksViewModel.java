@@ -0,0 +1,220 @@
+package com.example.booklistingapp;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ViewModel;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+//Outlives activity recreation: the loaded books, the search state and the requests in flight stay here,
+//so a rotated activity reattaches to them instead of fetching again
+public class BooksViewModel extends ViewModel {
+    private static final String TAG = "BooksViewModel";
+
+    private final BooksRepository repository = new BooksRepository();
+    private final MutableLiveData<Page> pages = new MutableLiveData<>();
+    // The saved state of the books restoreBooks() brought back, null once applied
+    private final MutableLiveData<Bundle> restoredState = new MutableLiveData<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int pageVersion;
+    private int appliedVersion;
+
+    private WindowedBookList books;
+    private final BookIndex index = new BookIndex();
+    private BookIndex.Filter filter = BookIndex.Filter.NONE;
+    private String lastQuery = "";
+    private ArrayList<Book> lastResults = new ArrayList<>();
+    private boolean loadingMore;
+    private boolean loadedAllData;
+
+    //One result of a search or load more. Versions increase, so a page redelivered to a new observer can be told apart.
+    public static class Page {
+        private final int version;
+        private final BookResult result;
+
+        Page(int version, BookResult result) {
+            this.version = version;
+            this.result = result;
+        }
+
+        public BookResult getResult() {
+            return result;
+        }
+    }
+
+    //Holds no reference to the activity, results arriving while it is recreated wait in the LiveData
+    private final BookRequestScheduler.Callback deliver = new BookRequestScheduler.Callback() {
+        @Override
+        public void onBooksLoaded(BookResult result) {
+            pages.setValue(new Page(++pageVersion, result));
+        }
+    };
+
+    //Each page is delivered once, with one outstanding at a time the latest value is enough while stopped
+    public LiveData<Page> getPages() {
+        return pages;
+    }
+
+    //True the first time the page is seen, the observer applies it then
+    public boolean markApplied(Page page) {
+        if (page.version <= appliedVersion) {
+            return false;
+        }
+        appliedVersion = page.version;
+        return true;
+    }
+
+    //Returns true when the list was created now, false when it survived from a previous activity
+    public boolean attach(File windowFile) {
+        if (books != null) {
+            return false;
+        }
+        books = new WindowedBookList(windowFile);
+        return true;
+    }
+
+    public WindowedBookList getBooks() {
+        return books;
+    }
+
+    //Brings back the books saved before the process was killed. They are read on a background thread, chunk by
+    //chunk into a list and index of their own, and taken over on the main thread unless a search started meanwhile.
+    //The state saved with them is then published through getRestoredState().
+    public void restoreBooks(final File savedBooks, final File windowFile, final Bundle savedInstanceState) {
+        BookRequestScheduler.BACKGROUND.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!savedBooks.exists()) {
+                    return;
+                }
+                final WindowedBookList restored = new WindowedBookList(windowFile);
+                final BookIndex restoredIndex = new BookIndex();
+                try (InputStream in = new BufferedInputStream(new FileInputStream(savedBooks))) {
+                    restored.readFrom(in, restoredIndex);
+                } catch (IOException e) {
+                    Log.e(TAG, "restoreBooks: could not read the saved books", e);
+                    restored.clear();
+                    return;
+                }
+                if (restored.isEmpty()) {
+                    return;
+                }
+                final ArrayList<Book> firstBooks = new ArrayList<>(
+                        restored.subList(0, Math.min(restored.size(), WindowedBookList.CHUNK_SIZE)));
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!books.isEmpty() || !lastQuery.isEmpty()) {
+                            restored.clear();
+                            return;
+                        }
+                        books.adopt(restored);
+                        index.adopt(restoredIndex);
+                        lastResults = firstBooks;
+                        restoredState.setValue(savedInstanceState);
+                    }
+                });
+            }
+        });
+    }
+
+    public LiveData<Bundle> getRestoredState() {
+        return restoredState;
+    }
+
+    //Called once the restored state is applied, a recreated activity doesn't apply it again
+    public void clearRestoredState() {
+        restoredState.setValue(null);
+    }
+
+    //Kept in step with the books by the adapter
+    public BookIndex getIndex() {
+        return index;
+    }
+
+    public BookIndex.Filter getFilter() {
+        return filter;
+    }
+
+    public void setFilter(BookIndex.Filter filter) {
+        this.filter = filter;
+    }
+
+    public void search(BooksQuery query, int results) {
+        repository.search(query, results, deliver);
+    }
+
+    public void searchOffline(String query) {
+        repository.searchOffline(query, deliver);
+    }
+
+    public boolean loadNextPage() {
+        return repository.loadNextPage(deliver);
+    }
+
+    public void prefetch(int pagesAhead) {
+        repository.prefetch(pagesAhead);
+    }
+
+    public boolean isOffline() {
+        return repository.isOffline();
+    }
+
+    public String getLastQuery() {
+        return lastQuery;
+    }
+
+    public void setLastQuery(String lastQuery) {
+        this.lastQuery = lastQuery;
+    }
+
+    public ArrayList<Book> getLastResults() {
+        return lastResults;
+    }
+
+    public void setLastResults(ArrayList<Book> lastResults) {
+        this.lastResults = lastResults;
+    }
+
+    //Adapter flags, kept while the activity is recreated
+    public void saveListState(boolean loadingMore, boolean loadedAllData) {
+        this.loadingMore = loadingMore;
+        this.loadedAllData = loadedAllData;
+    }
+
+    public boolean isLoadingMore() {
+        return loadingMore;
+    }
+
+    public boolean isLoadedAllData() {
+        return loadedAllData;
+    }
+
+    public void saveState(Bundle outState, boolean pendingPage) {
+        repository.saveState(outState, pendingPage);
+    }
+
+    public void restoreState(Bundle savedInstanceState) {
+        repository.restoreState(savedInstanceState);
+    }
+
+    @Override
+    protected void onCleared() {
+        repository.cancelAll();
+    }
+
+    @Override
+    public String toString() {
+        return repository.toString();
+    }
+}
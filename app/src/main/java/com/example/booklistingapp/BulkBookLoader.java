@@ -0,0 +1,168 @@
+package com.example.booklistingapp;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+//Fetches the first N results of a query as concurrent page requests and merges them in index order.
+//How many pages are in flight adapts to how the server copes: one more after every page that comes back about as
+//fast as the fastest so far, half as many after a failure, a rate limit or a page that took much longer.
+public class BulkBookLoader {
+    private static final String TAG = "BulkBookLoader";
+    static final int PAGE_SIZE = BooksQuery.MAX_PAGE_SIZE;
+    static final int MAX_PARALLELISM = 6;
+    static final int INITIAL_PARALLELISM = 2;
+    // A page this many times slower than the fastest one means the extra requests only wait somewhere
+    private static final int SLOWDOWN_FACTOR = 2;
+    // Pages answered from the cache would make every network page look slow
+    private static final long MIN_PAGE_MILLIS = 100;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    // Shared by every load, its threads time out once no load is running
+    private static final ThreadPoolExecutor POOL = createPool();
+
+    private static int parallelism = INITIAL_PARALLELISM;
+    private static long fastestPage = Long.MAX_VALUE;
+
+    private static class Page {
+        final int index;
+        final BookResult result;
+        final long millis;
+
+        Page(int index, BookResult result, long millis) {
+            this.index = index;
+            this.result = result;
+            this.millis = millis;
+        }
+    }
+
+    private static ThreadPoolExecutor createPool() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_PARALLELISM, MAX_PARALLELISM, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), BookRequestScheduler.threadFactory("BulkPage"));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    //Blocks until every page is in, call it from a worker thread. url must not carry a startIndex.
+    static BookResult load(String url, int totalResults, final BookRequest request) {
+        int pages = (totalResults + PAGE_SIZE - 1) / PAGE_SIZE;
+        BookResult[] results = new BookResult[pages];
+        CompletionService<Page> completion = new ExecutorCompletionService<>(POOL);
+        List<Future<Page>> futures = new ArrayList<>(pages);
+        int pageLimit = pages;
+        int running = 0;
+        try {
+            while (true) {
+                while (futures.size() < pageLimit && running < getParallelism()) {
+                    futures.add(completion.submit(pageTask(url, futures.size(), totalResults, request)));
+                    running++;
+                }
+                if (running == 0) {
+                    break;
+                }
+                Page page = completion.take().get();
+                running--;
+                results[page.index] = page.result;
+                adapt(page.result, page.millis);
+                if (page.result.getStatus() == BookResult.Status.EMPTY) {
+                    //past the last result, the following pages are empty too
+                    pageLimit = Math.min(pageLimit, page.index + 1);
+                }
+            }
+            return merge(results, totalResults);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return BookResult.failed(false);
+        } catch (ExecutionException e) {
+            Log.e(TAG, "load: page request failed", e);
+            return BookResult.failed(true);
+        } finally {
+            for (Future<Page> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static Callable<Page> pageTask(String url, final int index, int totalResults, final BookRequest request) {
+        int startIndex = index * PAGE_SIZE;
+        final String pageUrl = Uri.parse(url)
+                .buildUpon()
+                .appendQueryParameter("maxResults", String.valueOf(Math.min(PAGE_SIZE, totalResults - startIndex)))
+                .appendQueryParameter("startIndex", String.valueOf(startIndex))
+                .build()
+                .toString();
+        return new Callable<Page>() {
+            @Override
+            public Page call() {
+                if (request != null && request.isCancelled()) {
+                    return new Page(index, BookResult.failed(false), 0);
+                }
+                long start = SystemClock.elapsedRealtime();
+                BookResult result = QueryUtils.extractBooksFromURL(pageUrl, request);
+                return new Page(index, result, SystemClock.elapsedRealtime() - start);
+            }
+        };
+    }
+
+    //Merges the pages up to the first failed one. The pages after it are dropped, the list can't have a gap.
+    private static BookResult merge(BookResult[] results, int totalResults) {
+        ArrayList<Book> books = new ArrayList<>(totalResults);
+        Set<String> ids = new HashSet<>();
+        for (int index = 0; index < results.length; index++) {
+            BookResult page = results[index];
+            if (page == null || page.getStatus() == BookResult.Status.EMPTY) {
+                break;
+            }
+            if (!page.isLoaded()) {
+                //paging picks up again at the failed page
+                return index == 0 ? page : BookResult.partial(books, index * PAGE_SIZE);
+            }
+            for (Book book : page.getBooks()) {
+                //pages of the same query can overlap when results shift between requests
+                if (book.getId() == null || ids.add(book.getId())) {
+                    books.add(book);
+                }
+            }
+        }
+        return BookResult.of(books);
+    }
+
+    private static synchronized void adapt(BookResult page, long millis) {
+        if (!page.isLoaded()) {
+            if (page.isRetryable() || page.getStatus() == BookResult.Status.RATE_LIMITED) {
+                parallelism = Math.max(1, parallelism / 2);
+            }
+            return;
+        }
+        fastestPage = Math.min(fastestPage, Math.max(MIN_PAGE_MILLIS, millis));
+        if (millis > fastestPage * SLOWDOWN_FACTOR) {
+            parallelism = Math.max(1, parallelism / 2);
+        } else {
+            parallelism = Math.min(MAX_PARALLELISM, parallelism + 1);
+        }
+    }
+
+    //Pages the next load starts with in flight
+    static synchronized int getParallelism() {
+        return parallelism;
+    }
+
+    //Forgets what earlier loads learned, for tests
+    static synchronized void reset() {
+        parallelism = INITIAL_PARALLELISM;
+        fastestPage = Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.booklistingapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+//Fetches the first page of the pinned and recent searches ahead of the next launch, plus the thumbnails of their
+//first screen, into BookCache's warmed pages. Stops once the byte budget is spent or the time limit is up.
+//Whether a run's pages were used is known on the next run: BookCache deletes a warmed page once it served it.
+public class CacheWarmUp {
+    private static final String TAG = "CacheWarmUp";
+    static final int MAX_QUERIES = 8;
+    static final long DEFAULT_BYTE_BUDGET = 1024 * 1024;
+    static final long DEFAULT_TIME_LIMIT = 60 * 1000;
+    // Rows on the first screen of results
+    static final int THUMBNAILS_PER_QUERY = 6;
+    // Picasso downloads thumbnails on its own threads, they are charged to the budget at this size
+    static final long THUMBNAIL_BYTES_ESTIMATE = 8 * 1024;
+
+    private static final String PREFERENCES = "cache_warm_up";
+    private static final String PREF_LAST_PAGES = "last_pages";
+    private static final String PREF_WARMED_COUNT = "warmed_count";
+    private static final String PREF_USED_COUNT = "used_count";
+
+    private final Context context;
+    private final long byteBudget;
+    private final long timeLimit;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile boolean stopped;
+    private volatile BookRequest current;
+
+    public static class Report {
+        int pages;
+        int thumbnails;
+        long bytes;
+        boolean overBudget;
+        boolean stopped;
+        // Pages of the previous run, and how many of them a search was answered with
+        int previousPages;
+        int previousUsed;
+        // All runs so far
+        int warmedCount;
+        int usedCount;
+
+        public int getPages() {
+            return pages;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public boolean isOverBudget() {
+            return overBudget;
+        }
+
+        public boolean isStopped() {
+            return stopped;
+        }
+
+        public int getPreviousUsed() {
+            return previousUsed;
+        }
+
+        //Share of warmed pages that answered a search, in percent
+        public int getUsedRate() {
+            return warmedCount == 0 ? 0 : usedCount * 100 / warmedCount;
+        }
+
+        @Override
+        public String toString() {
+            return "warmed " + pages + " pages, " + thumbnails + " thumbnails, " + bytes + " bytes"
+                    + (overBudget ? " (over budget)" : "") + (stopped ? " (stopped)" : "")
+                    + ", previous run used " + previousUsed + "/" + previousPages
+                    + ", used " + usedCount + "/" + warmedCount + " overall (" + getUsedRate() + "%)";
+        }
+    }
+
+    public CacheWarmUp(Context context, long byteBudget, long timeLimit) {
+        this.context = context.getApplicationContext();
+        this.byteBudget = byteBudget;
+        this.timeLimit = timeLimit;
+    }
+
+    //Blocks until done, call it from a worker thread
+    public Report run() {
+        Report report = new Report();
+        Runnable timeout = new Runnable() {
+            @Override
+            public void run() {
+                stop();
+            }
+        };
+        mainHandler.postDelayed(timeout, timeLimit);
+        try {
+            BookCache cache = BookCache.getInstance();
+            cache.install(context);
+            BookStore.init(context);
+            SharedPreferences preferences = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+            countUsedPages(cache, preferences, report);
+
+            Set<String> pages = new HashSet<>();
+            for (String query : SearchHistory.get(context).getWarmUpQueries(MAX_QUERIES)) {
+                if (stopped) {
+                    break;
+                }
+                if (report.bytes >= byteBudget) {
+                    report.overBudget = true;
+                    break;
+                }
+                String url = new BooksQuery.Builder(query).maxResults(BooksQuery.MAX_PAGE_SIZE).build().toUrl();
+                ArrayList<Book> books = fetch(url, report);
+                if (books != null && cache.putWarmPage(url, books)) {
+                    report.pages++;
+                    pages.add(cache.warmPageFile(url).getName());
+                    prefetchThumbnails(books, report);
+                }
+            }
+            report.stopped = stopped;
+
+            report.warmedCount = preferences.getInt(PREF_WARMED_COUNT, 0) + report.pages;
+            preferences.edit()
+                    .putStringSet(PREF_LAST_PAGES, pages)
+                    .putInt(PREF_WARMED_COUNT, report.warmedCount)
+                    .apply();
+        } finally {
+            mainHandler.removeCallbacks(timeout);
+        }
+        Log.i(TAG, "run: " + report);
+        return report;
+    }
+
+    //Aborts the page being fetched and skips the rest, from any thread
+    public void stop() {
+        stopped = true;
+        BookRequest request = current;
+        if (request != null) {
+            request.cancel();
+        }
+    }
+
+    //Pages of the previous run that are gone were served by BookCache. Expired ones, and the empty ones BookCache
+    //leaves behind when it couldn't read a page, are dropped here.
+    private static void countUsedPages(BookCache cache, SharedPreferences preferences, Report report) {
+        Set<String> remaining = new HashSet<>();
+        for (File file : cache.listWarmPages()) {
+            if (file.length() == 0) {
+                remaining.add(file.getName());
+                file.delete();
+            } else if (System.currentTimeMillis() - file.lastModified() > BookCache.WARM_PAGE_MAX_AGE) {
+                file.delete();
+            } else {
+                remaining.add(file.getName());
+            }
+        }
+        Set<String> previous = preferences.getStringSet(PREF_LAST_PAGES, new HashSet<String>());
+        report.previousPages = previous.size();
+        for (String page : previous) {
+            if (!remaining.contains(page)) {
+                report.previousUsed++;
+            }
+        }
+        report.usedCount = preferences.getInt(PREF_USED_COUNT, 0) + report.previousUsed;
+        preferences.edit().putInt(PREF_USED_COUNT, report.usedCount).apply();
+    }
+
+    //Always from the network, the cached page may be the warmed one being replaced. Goes through QueryUtils like a
+    //search, so the page also lands in BookStore and the in-memory cache.
+    private ArrayList<Book> fetch(String url, Report report) {
+        BookRequest request = new BookRequest(url, 0);
+        current = request;
+        if (stopped) {
+            request.cancel();
+        }
+        BookResult result = QueryUtils.fetchPage(url, request);
+        current = null;
+        report.bytes += request.getBytesRead();
+        return result.isLoaded() && !request.isCancelled() ? result.getBooks() : null;
+    }
+
+    private void prefetchThumbnails(List<Book> books, Report report) {
+        BookImageLoader imageLoader = BookImageLoader.get(context);
+        for (int i = 0; i < Math.min(books.size(), THUMBNAILS_PER_QUERY); i++) {
+            String url = books.get(i).getImageURL();
+            if (url == null || url.isEmpty()) {
+                continue;
+            }
+            if (report.bytes + THUMBNAIL_BYTES_ESTIMATE > byteBudget) {
+                report.overBudget = true;
+                return;
+            }
+            imageLoader.prefetch(url);
+            report.thumbnails++;
+            report.bytes += THUMBNAIL_BYTES_ESTIMATE;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.booklistingapp;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.util.concurrent.TimeUnit;
+
+//Runs CacheWarmUp now and then while the device is charging on an unmetered network
+public class CacheWarmUpWorker extends Worker {
+    private static final String WORK_NAME = "cache_warm_up";
+    private static final long INTERVAL_HOURS = 12;
+
+    private final CacheWarmUp warmUp;
+
+    public CacheWarmUpWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+        warmUp = new CacheWarmUp(context, CacheWarmUp.DEFAULT_BYTE_BUDGET, CacheWarmUp.DEFAULT_TIME_LIMIT);
+    }
+
+    //Keeps the existing schedule, so it is cheap to call on every start. Initializes WorkManager, which reads
+    //its database, so keep it off the main thread.
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresCharging(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(CacheWarmUpWorker.class, INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        warmUp.run();
+        return Result.success();
+    }
+
+    //Constraints no longer met, or the run took too long for WorkManager
+    @Override
+    public void onStopped() {
+        warmUp.stop();
+    }
+}
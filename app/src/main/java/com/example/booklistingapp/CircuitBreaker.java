@@ -0,0 +1,94 @@
+package com.example.booklistingapp;
+
+import android.os.SystemClock;
+
+//Stops sending requests for a while after repeated failures, then lets a single trial request through
+public class CircuitBreaker {
+    //Milliseconds from a monotonic source, swapped out by tests
+    interface Clock {
+        long now();
+    }
+
+    static final Clock ELAPSED_REALTIME = new Clock() {
+        @Override
+        public long now() {
+            return SystemClock.elapsedRealtime();
+        }
+    };
+
+    private final int failureThreshold;
+    private final long openDuration;
+    private final Clock clock;
+
+    private int consecutiveFailures;
+    private boolean open;
+    private long openUntil;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openDuration) {
+        this(failureThreshold, openDuration, ELAPSED_REALTIME);
+    }
+
+    CircuitBreaker(int failureThreshold, long openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    //Whether a request may go to the network now
+    public synchronized boolean allowRequest() {
+        if (!open) {
+            return true;
+        }
+        if (clock.now() < openUntil || trialInFlight) {
+            return false;
+        }
+        //half open: one request finds out whether the service is back
+        trialInFlight = true;
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        open = false;
+        trialInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (trialInFlight || consecutiveFailures >= failureThreshold) {
+            open(openDuration);
+        }
+    }
+
+    //The request was cancelled or failed in a way that says nothing about the service, e.g. a 404 or a bad body.
+    //Leaves the state as it was but frees the trial slot, so the next request can be the trial.
+    public synchronized void onInconclusive() {
+        trialInFlight = false;
+    }
+
+    //Rate limiting opens the circuit for as long as the server asked. Without a Retry-After it is a failure like any
+    //other, so a single bare 429 is retried instead of shutting requests off for the whole open duration.
+    public synchronized void onRateLimited(long retryAfter) {
+        if (retryAfter > 0) {
+            open(retryAfter);
+        } else {
+            onFailure();
+        }
+    }
+
+    public synchronized boolean isOpen() {
+        return open && clock.now() < openUntil;
+    }
+
+    //Milliseconds until the open circuit lets a trial through, 0 when it is closed or half open
+    public synchronized long getOpenRemaining() {
+        return isOpen() ? openUntil - clock.now() : 0;
+    }
+
+    private void open(long duration) {
+        open = true;
+        openUntil = clock.now() + duration;
+        trialInFlight = false;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.booklistingapp;
+
+import android.view.Choreographer;
+
+//Records frame intervals while started and counts the vsyncs that were missed in between
+public class FrameMonitor implements Choreographer.FrameCallback {
+    private static final long FRAME_NANOS = 1000000000L / 60;
+    // Longer pauses are the app being idle or in the background rather than jank
+    private static final long MAX_INTERVAL_NANOS = 1000000000L;
+
+    private long lastFrameNanos;
+    private boolean running;
+
+    public void start() {
+        if (!Metrics.ENABLED || running) {
+            return;
+        }
+        running = true;
+        lastFrameNanos = 0;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        if (lastFrameNanos != 0) {
+            long interval = frameTimeNanos - lastFrameNanos;
+            if (interval < MAX_INTERVAL_NANOS) {
+                Metrics.FRAME.recordNanos(interval);
+                //half a frame of slack for vsync jitter
+                long dropped = (interval + FRAME_NANOS / 2) / FRAME_NANOS - 1;
+                if (dropped > 0) {
+                    Metrics.DROPPED_FRAMES.add(dropped);
+                }
+            }
+        }
+        lastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+}
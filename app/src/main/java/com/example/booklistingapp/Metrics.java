@@ -0,0 +1,217 @@
+package com.example.booklistingapp;
+
+import android.os.Trace;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//Timers, histograms and counters for the hot paths. Only recorded in debug builds, a release build pays a field read.
+public class Metrics {
+    private static final String TAG = "Metrics";
+    public static final boolean ENABLED = BuildConfig.DEBUG;
+
+    public static final Histogram NETWORK = new Histogram("network");
+    public static final Histogram PARSE = new Histogram("parse");
+    public static final Histogram BIND = new Histogram("bind");
+    public static final Histogram ROW_LAYOUT = new Histogram("row_layout");
+    public static final Histogram IMAGE_LOAD = new Histogram("image_load");
+    public static final Histogram FRAME = new Histogram("frame");
+
+    public static final Counter CACHE_HITS = new Counter("cache_hits");
+    public static final Counter CACHE_MISSES = new Counter("cache_misses");
+    public static final Counter IMAGE_ERRORS = new Counter("image_errors");
+    public static final Counter DROPPED_FRAMES = new Counter("dropped_frames");
+    // Searches answered by a page CacheWarmUp fetched ahead of time
+    public static final Counter WARM_PAGE_HITS = new Counter("warm_page_hits");
+
+    private static final Histogram[] HISTOGRAMS = {NETWORK, PARSE, BIND, ROW_LAYOUT, IMAGE_LOAD, FRAME};
+    private static final Counter[] COUNTERS = {CACHE_HITS, CACHE_MISSES, WARM_PAGE_HITS, IMAGE_ERRORS, DROPPED_FRAMES};
+
+    //Per-request details are only logged with `adb shell setprop log.tag.Metrics VERBOSE`
+    public static boolean isVerbose() {
+        return ENABLED && Log.isLoggable(TAG, Log.VERBOSE);
+    }
+
+    //Durations in power of two microsecond buckets, bucket i holds [2^(i-1), 2^i) us
+    public static class Histogram {
+        private static final int BUCKETS = 32;
+
+        private final String name;
+        private final long[] buckets = new long[BUCKETS];
+        private long count;
+        private long totalMicros;
+        private long maxMicros;
+
+        Histogram(String name) {
+            this.name = name;
+        }
+
+        //Opens a Trace section, pass the returned start to end() on the same thread
+        public long begin() {
+            if (!ENABLED) {
+                return 0;
+            }
+            Trace.beginSection(name);
+            return System.nanoTime();
+        }
+
+        public void end(long start) {
+            if (!ENABLED) {
+                return;
+            }
+            Trace.endSection();
+            recordNanos(System.nanoTime() - start);
+        }
+
+        public void recordNanos(long nanos) {
+            recordMicros(nanos / 1000);
+        }
+
+        public void recordMillis(long millis) {
+            recordMicros(millis * 1000);
+        }
+
+        synchronized void recordMicros(long micros) {
+            if (!ENABLED) {
+                return;
+            }
+            micros = Math.max(0, micros);
+            buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros))]++;
+            count++;
+            totalMicros += micros;
+            maxMicros = Math.max(maxMicros, micros);
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        //Upper bound of the bucket holding the percentile, in microseconds
+        public synchronized long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(1L << i, maxMicros);
+                }
+            }
+            return maxMicros;
+        }
+
+        public synchronized long getMeanMicros() {
+            return count == 0 ? 0 : totalMicros / count;
+        }
+
+        public synchronized long getMaxMicros() {
+            return maxMicros;
+        }
+
+        synchronized void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = 0;
+            }
+            count = 0;
+            totalMicros = 0;
+            maxMicros = 0;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("count", getCount());
+            json.put("mean_us", getMeanMicros());
+            json.put("p50_us", getPercentile(50));
+            json.put("p90_us", getPercentile(90));
+            json.put("p99_us", getPercentile(99));
+            json.put("max_us", getMaxMicros());
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            return name + " n=" + getCount() + " p50=" + formatMicros(getPercentile(50))
+                    + " p90=" + formatMicros(getPercentile(90)) + " max=" + formatMicros(getMaxMicros());
+        }
+    }
+
+    public static class Counter {
+        private final String name;
+        private final AtomicLong value = new AtomicLong();
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        public void increment() {
+            add(1);
+        }
+
+        public void add(long delta) {
+            if (ENABLED) {
+                value.addAndGet(delta);
+            }
+        }
+
+        public long get() {
+            return value.get();
+        }
+
+        @Override
+        public String toString() {
+            return name + "=" + get();
+        }
+    }
+
+    //Share of page lookups answered by the book cache, in percent
+    public static long getCacheHitRate() {
+        long lookups = CACHE_HITS.get() + CACHE_MISSES.get();
+        return lookups == 0 ? 0 : CACHE_HITS.get() * 100 / lookups;
+    }
+
+    public static String toJson() {
+        try {
+            JSONObject json = new JSONObject();
+            for (Histogram histogram : HISTOGRAMS) {
+                json.put(histogram.name, histogram.toJson());
+            }
+            for (Counter counter : COUNTERS) {
+                json.put(counter.name, counter.get());
+            }
+            json.put("cache_hit_rate", getCacheHitRate());
+            return json.toString(2);
+        } catch (JSONException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    //One line per metric, for the debug overlay
+    public static String summary() {
+        StringBuilder summary = new StringBuilder();
+        for (Histogram histogram : HISTOGRAMS) {
+            summary.append(histogram).append('\n');
+        }
+        summary.append("cache hit rate=").append(getCacheHitRate()).append("% ")
+                .append(CACHE_HITS).append(' ').append(CACHE_MISSES).append(' ').append(WARM_PAGE_HITS).append('\n')
+                .append(IMAGE_ERRORS).append(' ').append(DROPPED_FRAMES);
+        return summary.toString();
+    }
+
+    public static void reset() {
+        for (Histogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        for (Counter counter : COUNTERS) {
+            counter.value.set(0);
+        }
+    }
+
+    private static String formatMicros(long micros) {
+        return micros < 1000 ? micros + "us" : micros / 1000 + "ms";
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.booklistingapp;
+
+public interface OnAuthorClickListener {
+    void onAuthorClick(String author);
+}
@@ -0,0 +1,5 @@
+package com.example.booklistingapp;
+
+public interface OnPrefetchListener {
+    void onPrefetch(int pagesAhead);
+}
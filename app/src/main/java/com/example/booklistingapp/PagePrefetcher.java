@@ -0,0 +1,139 @@
+package com.example.booklistingapp;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+
+//Fetches the next pages of the current search ahead of the scroll position into a staging buffer
+public class PagePrefetcher {
+    private static final int MAX_IN_FLIGHT = 2;
+
+    private final BookRequestScheduler scheduler;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final SparseArray<ArrayList<Book>> staged = new SparseArray<>();
+    private final SparseArray<BookRequestScheduler.Callback> waiting = new SparseArray<>();
+    private final SparseArray<BookRequest> inFlight = new SparseArray<>();
+
+    private String baseUrl;
+    private int pageSize;
+    private int nextStartIndex;
+
+    private int loadMoreCount;
+    private int spinnerCount;
+
+    public PagePrefetcher(BookRequestScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    //Starts paging a new search whose results up to nextStartIndex have already been requested
+    public void reset(String baseUrl, int pageSize, int nextStartIndex) {
+        this.baseUrl = baseUrl;
+        this.pageSize = pageSize;
+        this.nextStartIndex = nextStartIndex;
+        staged.clear();
+        waiting.clear();
+        inFlight.clear();
+    }
+
+    //Moves paging back to startIndex, for a first load that stopped short of the index reset() was given
+    public void resumeAt(int startIndex) {
+        nextStartIndex = Math.min(nextStartIndex, startIndex);
+    }
+
+    //Makes sure the next pagesAhead pages are staged or on their way
+    public void prefetch(int pagesAhead) {
+        if (baseUrl == null) {
+            return;
+        }
+        for (int i = 0; i < pagesAhead && inFlight.size() < MAX_IN_FLIGHT; i++) {
+            int startIndex = nextStartIndex + i * pageSize;
+            if (staged.get(startIndex) == null && inFlight.get(startIndex) == null) {
+                request(startIndex);
+            }
+        }
+    }
+
+    //Hands the next page to the callback. Returns true when it was already staged, false when it has to be waited for.
+    public boolean loadNextPage(final BookRequestScheduler.Callback callback) {
+        final int startIndex = nextStartIndex;
+        nextStartIndex += pageSize;
+        loadMoreCount++;
+
+        final ArrayList<Book> books = staged.get(startIndex);
+        if (books != null) {
+            staged.remove(startIndex);
+            //delivered on the next loop iteration, the adapter can't be changed from its scroll callback
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onBooksLoaded(BookResult.of(books));
+                }
+            });
+            return true;
+        }
+
+        spinnerCount++;
+        waiting.put(startIndex, new BookRequestScheduler.Callback() {
+            @Override
+            public void onBooksLoaded(BookResult result) {
+                if (!result.isLoaded() && nextStartIndex == startIndex + pageSize) {
+                    //the page failed, the next load more asks for it again
+                    nextStartIndex = startIndex;
+                }
+                callback.onBooksLoaded(result);
+            }
+        });
+        if (inFlight.get(startIndex) == null) {
+            request(startIndex);
+        }
+        return false;
+    }
+
+    private void request(final int startIndex) {
+        final String url = Uri.parse(baseUrl)
+                .buildUpon()
+                .appendQueryParameter("startIndex", String.valueOf(startIndex))
+                .build()
+                .toString();
+        final String requestedBaseUrl = baseUrl;
+        BookRequest request = scheduler.submit(url, new BookRequestScheduler.Callback() {
+            @Override
+            public void onBooksLoaded(BookResult result) {
+                if (!requestedBaseUrl.equals(baseUrl)) {
+                    return;
+                }
+                inFlight.remove(startIndex);
+                BookRequestScheduler.Callback callback = waiting.get(startIndex);
+                if (callback != null) {
+                    waiting.remove(startIndex);
+                    callback.onBooksLoaded(result);
+                } else if (result.isLoaded()) {
+                    //failed pages aren't staged, they are requested again when needed
+                    staged.put(startIndex, result.getBooks());
+                }
+            }
+        });
+        inFlight.put(startIndex, request);
+    }
+
+    public int getNextStartIndex() {
+        return nextStartIndex;
+    }
+
+    public int getLoadMoreCount() {
+        return loadMoreCount;
+    }
+
+    //How many load mores had to show the spinner row because the page wasn't staged yet
+    public int getSpinnerCount() {
+        return spinnerCount;
+    }
+
+    @Override
+    public String toString() {
+        return "load more=" + loadMoreCount + " spinner shown=" + spinnerCount;
+    }
+}
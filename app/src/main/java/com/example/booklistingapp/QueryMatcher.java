@@ -0,0 +1,38 @@
+package com.example.booklistingapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+//Answers a query locally from books that are already loaded
+public class QueryMatcher {
+
+    public static String normalize(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    //Books whose title or authors contain every word of the normalized query
+    public static ArrayList<Book> filter(List<Book> books, String query) {
+        String[] terms = query.split(" ");
+        ArrayList<Book> matches = new ArrayList<>();
+        for (Book book : books) {
+            if (book != null && matches(book, terms)) {
+                matches.add(book);
+            }
+        }
+        return matches;
+    }
+
+    private static boolean matches(Book book, String[] terms) {
+        String text = book.getTitle().toLowerCase(Locale.ROOT);
+        if (book.getAuthorsText() != null) {
+            text += " " + book.getAuthorsText().toLowerCase(Locale.ROOT);
+        }
+        for (String term : terms) {
+            if (!text.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
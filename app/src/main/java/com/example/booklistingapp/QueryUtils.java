@@ -2,73 +2,398 @@ package com.example.booklistingapp;
 
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.util.JsonReader;
+import android.util.JsonToken;
 import android.util.Log;
+import android.util.MalformedJsonException;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
 
 import javax.net.ssl.HttpsURLConnection;
 
 public class QueryUtils {
     private static final String TAG = "QueryUtils";
 
-    static public ArrayList<Book> extractBooksFromURL(String url) {
-        String jsonData = makeHTTPConnection(createURL(url));
-        Log.i(TAG, "extractBooksFromURL: JSONDATA: " + jsonData);
-        return parseJSONData(jsonData);
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF = 500;
+    // A longer Retry-After is not waited out inside the request, the circuit breaker holds off instead
+    private static final long MAX_RETRY_DELAY = 10 * 1000;
+
+    // Authors repeat across responses, the books of every loaded page share one instance of each
+    private static final StringInterner AUTHORS = new StringInterner();
+    private static final RequestCoalescer COALESCER = new RequestCoalescer();
+    private static final CircuitBreaker CIRCUIT_BREAKER = new CircuitBreaker(5, 30 * 1000);
+    private static final Random RANDOM = new Random();
+    private static volatile BooksHttpClient httpClient = new UrlConnectionHttpClient();
+
+    public static void setHttpClient(BooksHttpClient client) {
+        httpClient = client;
+    }
+
+    public static BooksHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    static public BookResult extractBooksFromURL(String url) {
+        return extractBooksFromURL(url, null);
+    }
+
+    static public BookResult extractBooksFromURL(final String url, BookRequest request) {
+        final BookCache cache = BookCache.getInstance();
+        BookCache.Entry cached = cache.get(url);
+        if (cached != null) {
+            Metrics.CACHE_HITS.increment();
+            if (cache.isStale(cached)) {
+                //serve the stale page now and refresh it for the next request
+                BookRequestScheduler.BACKGROUND.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        refreshPage(url);
+                    }
+                });
+            }
+            ArrayList<Book> books = cached.getBooks();
+            //only warmed pages still need it, the Book objects of fetched pages were measured when parsed
+            BookTextPrecomputer.precompute(books);
+            return BookResult.of(books);
+        }
+        Metrics.CACHE_MISSES.increment();
+        return fetchPage(url, request);
+    }
+
+    //Skips the cache lookup: fetches the page, then caches and stores it
+    static BookResult fetchPage(final String url, BookRequest request) {
+        final BookCache cache = BookCache.getInstance();
+        return COALESCER.execute(url, request, new RequestCoalescer.Loader() {
+            @Override
+            public BookResult load(BookRequest request) {
+                BookResult result = fetchWithRetry(createURL(url), request);
+                if (result.isLoaded()) {
+                    cache.put(url, result.getBooks());
+                    BookStore store = BookStore.getInstance();
+                    if (store != null) {
+                        store.saveAsync(result.getBooks());
+                    }
+                }
+                return result;
+            }
+        });
+    }
+
+    //Revalidates a stale page past the disk cache. Shares the call with a search or refresh of the same page
+    //already in flight, so a burst of stale hits sends one request.
+    static BookResult refreshPage(final String url) {
+        return COALESCER.execute(url, null, new RequestCoalescer.Loader() {
+            @Override
+            public BookResult load(BookRequest request) {
+                if (!CIRCUIT_BREAKER.allowRequest()) {
+                    return BookResult.failed(true);
+                }
+                BookResult result = BookResult.failed(false);
+                try {
+                    result = makeHTTPConnection(createURL(url), null, true);
+                } finally {
+                    recordOutcome(result);
+                }
+                if (result.isLoaded()) {
+                    BookCache.getInstance().put(url, result.getBooks());
+                }
+                return result;
+            }
+        });
+    }
+
+    static CircuitBreaker getCircuitBreaker() {
+        return CIRCUIT_BREAKER;
     }
 
-    static private String makeHTTPConnection(URL url) {
+    public static int getCoalescedCount() {
+        return COALESCER.getCoalescedCount();
+    }
+
+    //Retries failed and rate limited requests with jittered exponential backoff, unless the circuit is open
+    static private BookResult fetchWithRetry(URL url, BookRequest request) {
+        BookResult result = BookResult.failed(false);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (request != null && request.isCancelled()) {
+                return BookResult.failed(false);
+            }
+            if (!CIRCUIT_BREAKER.allowRequest()) {
+                if (Metrics.isVerbose()) {
+                    Log.v(TAG, "fetchWithRetry: circuit open, not sending " + url);
+                }
+                return attempt == 0 ? BookResult.failed(true) : result;
+            }
+
+            //settles the breaker's trial whatever happens, or the circuit would never close again
+            result = BookResult.failed(false);
+            try {
+                result = makeHTTPConnection(url, request, false);
+            } finally {
+                recordOutcome(result);
+            }
+            if (result.isLoaded() || !result.isRetryable() || attempt == MAX_ATTEMPTS - 1) {
+                return result;
+            }
+
+            long delay = result.getRetryAfter() > 0 ? result.getRetryAfter() : backoff(attempt);
+            //no use sleeping if the circuit would still refuse the retry afterwards
+            if (delay > MAX_RETRY_DELAY || CIRCUIT_BREAKER.getOpenRemaining() > delay) {
+                return result;
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return BookResult.failed(false);
+            }
+        }
+        return result;
+    }
+
+    static private void recordOutcome(BookResult result) {
+        if (result.isLoaded()) {
+            CIRCUIT_BREAKER.onSuccess();
+        } else if (result.getStatus() == BookResult.Status.RATE_LIMITED) {
+            CIRCUIT_BREAKER.onRateLimited(result.getRetryAfter());
+        } else if (result.isRetryable()) {
+            CIRCUIT_BREAKER.onFailure();
+        } else {
+            CIRCUIT_BREAKER.onInconclusive();
+        }
+    }
+
+    //Half of the exponential delay plus a random share of the other half
+    static private long backoff(int attempt) {
+        long delay = BASE_BACKOFF << attempt;
+        return delay / 2 + (long) (RANDOM.nextDouble() * delay / 2);
+    }
+
+    //revalidate skips the disk cache's copy, for refreshing a page that is already stale
+    static private BookResult makeHTTPConnection(URL url, BookRequest request, boolean revalidate) {
         if (url == null) {
-            return "";
+            return BookResult.failed(false);
         }
 
-        HttpURLConnection urlConnection = null;
-        String responseString = "";
-        try {
-            urlConnection = (HttpURLConnection) url.openConnection();
-            urlConnection.setRequestMethod("GET");
-            urlConnection.connect();
-            Log.i(TAG, "makeHTTPConnection: RESPONSE CODE = " + urlConnection.getResponseCode());
-            if (urlConnection.getResponseCode() == HttpsURLConnection.HTTP_OK) {
-                try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(urlConnection.getInputStream()))){
-                    StringBuilder input = new StringBuilder();
-                    String line = bufferedReader.readLine();
-                    while (line != null) {
-                        input.append(line);
-                        line = bufferedReader.readLine();
+        Map<String, String> headers = new HashMap<>();
+        if (revalidate) {
+            headers.put("Cache-Control", "no-cache");
+        } else if (BookCache.getInstance().isDiskCacheInstalled()) {
+            //let the disk cache answer without revalidating while the response is within the TTL
+            headers.put("Cache-Control", "max-stale=" + BookCache.getInstance().getTtl() / 1000);
+        }
+
+        try (BooksHttpClient.Response response = httpClient.get(url, headers, request)) {
+            int code = response.getCode();
+            if (Metrics.isVerbose()) {
+                Log.v(TAG, "makeHTTPConnection: " + url + " RESPONSE CODE = " + code);
+            }
+            if (code == HttpsURLConnection.HTTP_OK && response.getBody() != null) {
+                try {
+                    //the body is parsed as it streams in, so this includes reading it
+                    long parseStart = Metrics.PARSE.begin();
+                    ArrayList<Book> books;
+                    try {
+                        InputStream body = response.getBody();
+                        books = parseJSONStream(request != null ? new CountingInputStream(body, request) : body);
+                    } finally {
+                        Metrics.PARSE.end(parseStart);
+                    }
+                    BookTextPrecomputer.precompute(books);
+                    if (request != null && request.isCancelled()) {
+                        return BookResult.failed(false);
                     }
-                    responseString = input.toString();
-                } catch (IOException e) {
-                    Log.e(TAG, "makeHTTPConnection: error reading the data from stream");
+                    return BookResult.of(books);
+                } catch (IllegalStateException | NumberFormatException | MalformedJsonException e) {
+                    //the same body would come back again, so a malformed one is not retried
+                    Log.e(TAG, "makeHTTPConnection: error parsing the data from stream");
+                    return BookResult.failed(false);
                 }
+            } else if (code == HTTP_TOO_MANY_REQUESTS) {
+                return BookResult.rateLimited(parseRetryAfter(response.getHeader("Retry-After")));
             }
+            return BookResult.failed(code >= HttpsURLConnection.HTTP_INTERNAL_ERROR);
         } catch (IOException e) {
             Log.e(TAG, "makeHTTPConnection: Error");
-        } finally {
-            if (urlConnection != null) {
-                urlConnection.disconnect();
+            return BookResult.failed(request == null || !request.isCancelled());
+        }
+    }
+
+    //Adds what is read from the body to the request's byte count
+    private static class CountingInputStream extends FilterInputStream {
+        private final BookRequest request;
+
+        CountingInputStream(InputStream in, BookRequest request) {
+            super(in);
+            this.request = request;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                request.addBytesRead(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            int read = super.read(buffer, offset, count);
+            if (read > 0) {
+                request.addBytesRead(read);
+            }
+            return read;
+        }
+    }
+
+    //Retry-After is either a number of seconds or an HTTP date
+    static long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                DateFormat df = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+                return Math.max(0, df.parse(retryAfter).getTime() - System.currentTimeMillis());
+            } catch (ParseException e1) {
+                return 0;
+            }
+        }
+    }
+
+    //Pull books straight from the response stream, skipping everything outside items[].volumeInfo
+    static ArrayList<Book> parseJSONStream(InputStream in) throws IOException {
+        ArrayList<Book> books = new ArrayList<>();
+        JsonReader reader = new JsonReader(new InputStreamReader(in, "UTF-8"));
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("items") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    Book book = readVolume(reader);
+                    if (book != null) {
+                        books.add(book);
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return books;
+    }
+
+    static private Book readVolume(JsonReader reader) throws IOException {
+        String id = null;
+        Book book = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("id") && reader.peek() == JsonToken.STRING) {
+                id = reader.nextString();
+            } else if (name.equals("volumeInfo") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                book = readVolumeInfo(reader, id);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return book;
+    }
+
+    static private Book readVolumeInfo(JsonReader reader, String id) throws IOException {
+        List<String> authors = null;
+        String title = null, description = "", imageURL = "";
+        int pageCount = Book.INT_FIELD_NOT_PROVIDED;
+        int publishedDate = BookDate.NONE;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "title":
+                    title = reader.nextString();
+                    break;
+                case "authors":
+                    authors = readStringList(reader);
+                    break;
+                case "description":
+                    description = reader.nextString();
+                    break;
+                case "pageCount":
+                    pageCount = reader.nextInt();
+                    break;
+                case "publishedDate":
+                    publishedDate = BookDate.parse(reader.nextString());
+                    break;
+                case "imageLinks":
+                    imageURL = readThumbnail(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (title == null) {
+            return null;
+        }
+        return new Book(id, title, authors, description, publishedDate, pageCount, imageURL);
+    }
+
+    static private String readThumbnail(JsonReader reader) throws IOException {
+        String thumbnail = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("thumbnail") && reader.peek() == JsonToken.STRING) {
+                thumbnail = reader.nextString();
+            } else {
+                reader.skipValue();
             }
         }
-        return responseString;
+        reader.endObject();
+        return thumbnail;
+    }
+
+    static private List<String> readStringList(JsonReader reader) throws IOException {
+        List<String> array = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            array.add(AUTHORS.intern(reader.nextString()));
+        }
+        reader.endArray();
+        return array;
     }
 
-    static private ArrayList<Book> parseJSONData(String data) {
+    //DOM based parser, kept as a reference for the streaming one
+    static ArrayList<Book> parseJSONData(String data) {
         try {
             ArrayList<Book> books = new ArrayList<>();
             JSONObject initialJson = new JSONObject(data);
@@ -84,7 +409,7 @@ public class QueryUtils {
                 List<String> authors = null;
                 String description = "", imageURL = "";
                 int pageCount = Book.INT_FIELD_NOT_PROVIDED;
-                Date publishedDate = null;
+                int publishedDate = BookDate.NONE;
 
                 String title = volumeInfo.getString("title");
                 if (volumeInfo.has("authors")) {
@@ -97,13 +422,13 @@ public class QueryUtils {
                     pageCount = volumeInfo.getInt("pageCount");
                 }
                 if (volumeInfo.has("publishedDate")) {
-                    publishedDate = extractDate(volumeInfo.getString("publishedDate"));
+                    publishedDate = BookDate.parse(volumeInfo.getString("publishedDate"));
                 }
                 if (volumeInfo.has("imageLinks")) {
                     JSONObject imageLinks = volumeInfo.getJSONObject("imageLinks");
                      imageURL = imageLinks.getString("thumbnail");
                 }
-                books.add(new Book(title, authors, description, publishedDate, pageCount, imageURL));
+                books.add(new Book(book.optString("id", null), title, authors, description, publishedDate, pageCount, imageURL));
             }
             return books;
         } catch (JSONException e) {
@@ -124,17 +449,6 @@ public class QueryUtils {
 //        }
 //    }
 
-    //Extract date from string (type: 2000-05-10)
-    static private Date extractDate(String date) {
-        try {
-            DateFormat df = new SimpleDateFormat("yyyy-MM-dd");
-            return df.parse(date);
-        } catch (ParseException e) {
-            Log.e(TAG, "extractDate: Error parsing the date: " +  date);
-            return null;
-        }
-    }
-
     static private List<String> jsonArrayToStringList(JSONArray jsonArray) throws JSONException {
         List<String> array = new ArrayList<>();
         for (int i=0; i<jsonArray.length(); i++) {
@@ -0,0 +1,77 @@
+package com.example.booklistingapp;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+//Lets concurrent requests for the same URL share a single network call
+public class RequestCoalescer {
+    private final Map<String, Call> calls = new HashMap<>();
+    private int coalescedCount;
+
+    interface Loader {
+        BookResult load(BookRequest request);
+    }
+
+    private static class Call {
+        final CountDownLatch done = new CountDownLatch(1);
+        final BookRequest leader;
+        BookResult result;
+
+        Call(BookRequest leader) {
+            this.leader = leader;
+        }
+    }
+
+    //Runs loader for the first caller of url, later callers block until it is done and get the same result
+    BookResult execute(String url, BookRequest request, Loader loader) {
+        while (true) {
+            Call call;
+            boolean leader = false;
+            synchronized (calls) {
+                call = calls.get(url);
+                if (call == null) {
+                    call = new Call(request);
+                    calls.put(url, call);
+                    leader = true;
+                } else {
+                    coalescedCount++;
+                }
+            }
+
+            if (leader) {
+                try {
+                    call.result = loader.load(request);
+                } finally {
+                    synchronized (calls) {
+                        calls.remove(url);
+                    }
+                    call.done.countDown();
+                }
+                return call.result;
+            }
+
+            try {
+                call.done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return BookResult.failed(false);
+            }
+            boolean leaderCancelled = call.leader != null && call.leader.isCancelled();
+            if (call.result == null) {
+                return BookResult.failed(false);
+            }
+            if (!leaderCancelled || (request != null && request.isCancelled())) {
+                return call.result;
+            }
+            //the shared call was aborted on behalf of a superseded search, fetch again for this one
+        }
+    }
+
+    //Requests that were answered by another request's network call
+    public int getCoalescedCount() {
+        synchronized (calls) {
+            return coalescedCount;
+        }
+    }
+}
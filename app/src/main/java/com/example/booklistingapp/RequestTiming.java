@@ -0,0 +1,40 @@
+package com.example.booklistingapp;
+
+//Where the time of one request went, in milliseconds
+public class RequestTiming {
+    long dns;
+    long connect;
+    long firstByte;
+    long body;
+    long bytes;
+
+    //Only measured when verbose metrics are on, otherwise resolving is part of connect
+    public long getDns() {
+        return dns;
+    }
+
+    //Resolving when dns is not measured, TCP and TLS handshake. Close to zero when a pooled connection was reused.
+    public long getConnect() {
+        return connect;
+    }
+
+    //From the request being sent to the response headers
+    public long getFirstByte() {
+        return firstByte;
+    }
+
+    //Reading (and parsing) the body
+    public long getBody() {
+        return body;
+    }
+
+    //Bytes received on the wire, before decompression
+    public long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "dns=" + dns + "ms connect=" + connect + "ms ttfb=" + firstByte + "ms body=" + body + "ms bytes=" + bytes;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.booklistingapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//The user's latest searches and the ones they pinned, which CacheWarmUp fetches ahead of the next launch.
+//Queries are stored normalized, see QueryMatcher.normalize.
+public class SearchHistory {
+    private static final String PREFERENCES = "search_history";
+    private static final String PREF_RECENT = "recent";
+    private static final String PREF_PINNED = "pinned";
+    // Queries are normalized, so they never contain a newline
+    private static final String SEPARATOR = "\n";
+    static final int MAX_RECENT = 5;
+
+    private static SearchHistory instance;
+
+    private final SharedPreferences preferences;
+    private final List<String> recent;
+    private final List<String> pinned;
+
+    private SearchHistory(Context context) {
+        preferences = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+        recent = split(preferences.getString(PREF_RECENT, ""));
+        pinned = split(preferences.getString(PREF_PINNED, ""));
+    }
+
+    //Reads the preferences file the first time, call it off the main thread where possible
+    public static synchronized SearchHistory get(Context context) {
+        if (instance == null) {
+            instance = new SearchHistory(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public synchronized void recordSearch(String query) {
+        if (addRecent(recent, query, MAX_RECENT)) {
+            preferences.edit().putString(PREF_RECENT, TextUtils.join(SEPARATOR, recent)).apply();
+        }
+    }
+
+    public synchronized boolean isPinned(String query) {
+        return pinned.contains(query);
+    }
+
+    public synchronized void setPinned(String query, boolean pin) {
+        if (query.isEmpty() || pinned.contains(query) == pin) {
+            return;
+        }
+        if (pin) {
+            pinned.add(query);
+        } else {
+            pinned.remove(query);
+        }
+        preferences.edit().putString(PREF_PINNED, TextUtils.join(SEPARATOR, pinned)).apply();
+    }
+
+    //Pinned queries first, then the recent ones, most recent first
+    public synchronized List<String> getWarmUpQueries(int limit) {
+        return merge(pinned, recent, limit);
+    }
+
+    //Puts query first. A search the query extends, typed on the way to it, is replaced. Returns false when
+    //nothing changed.
+    static boolean addRecent(List<String> recent, String query, int max) {
+        if (query.isEmpty() || (!recent.isEmpty() && recent.get(0).equals(query))) {
+            return false;
+        }
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            if (query.startsWith(recent.get(i))) {
+                recent.remove(i);
+            }
+        }
+        recent.add(0, query);
+        while (recent.size() > max) {
+            recent.remove(recent.size() - 1);
+        }
+        return true;
+    }
+
+    static List<String> merge(List<String> pinned, List<String> recent, int limit) {
+        List<String> queries = new ArrayList<>();
+        for (String query : pinned) {
+            if (queries.size() < limit) {
+                queries.add(query);
+            }
+        }
+        for (String query : recent) {
+            if (queries.size() < limit && !queries.contains(query)) {
+                queries.add(query);
+            }
+        }
+        return queries;
+    }
+
+    private static List<String> split(String joined) {
+        return joined.isEmpty() ? new ArrayList<String>() : new ArrayList<>(Arrays.asList(joined.split(SEPARATOR)));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.booklistingapp;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+//Time from process start to the first frame and to the first results, logged once per process.
+//measureStartup in app/build.gradle reads these lines, they are logged in release builds too.
+public class StartupTimer {
+    private static final String TAG = "Startup";
+
+    private static long processStart;
+    private static boolean firstFrameLogged;
+    private static boolean firstResultsLogged;
+
+    //Called as early as the app can run code, from BooksApplication
+    static void onProcessStart() {
+        processStart = SystemClock.uptimeMillis();
+    }
+
+    public static void watchFirstFrame(Activity activity) {
+        if (firstFrameLogged) {
+            return;
+        }
+        final View decorView = activity.getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                if (!firstFrameLogged) {
+                    firstFrameLogged = true;
+                    Log.i(TAG, "first frame " + sinceProcessStart() + "ms");
+                }
+                return true;
+            }
+        });
+    }
+
+    //The first results are what the user came for, reportFullyDrawn lets `am start -W` and the system see it too
+    public static void onResultsShown(Activity activity) {
+        if (firstResultsLogged) {
+            return;
+        }
+        firstResultsLogged = true;
+        Log.i(TAG, "first results " + sinceProcessStart() + "ms");
+        activity.reportFullyDrawn();
+    }
+
+    private static long sinceProcessStart() {
+        return SystemClock.uptimeMillis() - processStart;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.booklistingapp;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+//Hands out one shared instance per value while something still holds it. Entries go away with the last
+//reference, so values from every response can be fed to it. Safe to use from the parse threads.
+public class StringInterner {
+    private final WeakHashMap<String, WeakReference<String>> values = new WeakHashMap<>();
+
+    public synchronized String intern(String value) {
+        WeakReference<String> shared = values.get(value);
+        String instance = shared != null ? shared.get() : null;
+        if (instance == null) {
+            values.put(value, new WeakReference<>(value));
+            instance = value;
+        }
+        return instance;
+    }
+
+    public synchronized int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.booklistingapp;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.util.AttributeSet;
+import android.widget.ImageView;
+
+//ImageView in a fixed size slot. A new image doesn't change its size, so the relayout ImageView asks for when
+//the drawable's size differs is skipped, and a thumbnail arriving mid fling only redraws its own view.
+public class ThumbnailView extends ImageView {
+    private boolean settingImage;
+
+    public ThumbnailView(Context context) {
+        super(context);
+    }
+
+    public ThumbnailView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    @Override
+    public void setImageDrawable(Drawable drawable) {
+        settingImage = true;
+        super.setImageDrawable(drawable);
+        settingImage = false;
+    }
+
+    @Override
+    public void setImageResource(int resId) {
+        settingImage = true;
+        super.setImageResource(resId);
+        settingImage = false;
+    }
+
+    @Override
+    public void setImageBitmap(Bitmap bitmap) {
+        settingImage = true;
+        super.setImageBitmap(bitmap);
+        settingImage = false;
+    }
+
+    @Override
+    public void requestLayout() {
+        if (!settingImage) {
+            super.requestLayout();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.booklistingapp;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+//HttpURLConnection based client: keeps connections alive for reuse and asks for gzip bodies
+public class UrlConnectionHttpClient implements BooksHttpClient {
+    private static final String TAG = "UrlConnectionHttpClient";
+    private static final int CONNECT_TIMEOUT = 10 * 1000;
+    private static final int READ_TIMEOUT = 15 * 1000;
+
+    private int requestCount;
+    private long totalFirstByte;
+    private long totalBytes;
+
+    @Override
+    public Response get(URL url, Map<String, String> headers, BookRequest request) throws IOException {
+        final RequestTiming timing = new RequestTiming();
+
+        long start;
+        if (Metrics.isVerbose()) {
+            //resolved up front only to time it for the log, the connection then hits the resolver cache
+            start = SystemClock.elapsedRealtime();
+            InetAddress.getByName(url.getHost());
+            timing.dns = SystemClock.elapsedRealtime() - start;
+        }
+
+        final HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+        if (request != null) {
+            request.addConnection(urlConnection);
+        }
+        urlConnection.setRequestMethod("GET");
+        urlConnection.setConnectTimeout(CONNECT_TIMEOUT);
+        urlConnection.setReadTimeout(READ_TIMEOUT);
+        urlConnection.setRequestProperty("Accept-Encoding", "gzip");
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            urlConnection.addRequestProperty(header.getKey(), header.getValue());
+        }
+
+        start = SystemClock.elapsedRealtime();
+        urlConnection.connect();
+        timing.connect = SystemClock.elapsedRealtime() - start;
+
+        start = SystemClock.elapsedRealtime();
+        int code = urlConnection.getResponseCode();
+        timing.firstByte = SystemClock.elapsedRealtime() - start;
+        Metrics.NETWORK.recordMillis(timing.dns + timing.connect + timing.firstByte);
+
+        InputStream raw = code >= HttpURLConnection.HTTP_BAD_REQUEST ? urlConnection.getErrorStream() : urlConnection.getInputStream();
+        if (raw == null) {
+            record(timing);
+            return new Response(code, urlConnection.getHeaderFields(), null);
+        }
+
+        final long bodyStart = SystemClock.elapsedRealtime();
+        InputStream body = new FilterInputStream(raw) {
+            private boolean closed;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    timing.bytes++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int count) throws IOException {
+                int read = super.read(buffer, offset, count);
+                if (read > 0) {
+                    timing.bytes += read;
+                }
+                return read;
+            }
+
+            //Closing instead of disconnecting hands the socket back to the keep-alive pool
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                super.close();
+                timing.body = SystemClock.elapsedRealtime() - bodyStart;
+                record(timing);
+            }
+        };
+        if ("gzip".equalsIgnoreCase(urlConnection.getContentEncoding())) {
+            body = new GZIPInputStream(body);
+        }
+        return new Response(code, urlConnection.getHeaderFields(), body);
+    }
+
+    private synchronized void record(RequestTiming timing) {
+        requestCount++;
+        totalFirstByte += timing.firstByte;
+        totalBytes += timing.bytes;
+        if (Metrics.isVerbose()) {
+            Log.v(TAG, "request: " + timing);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "requests=" + requestCount
+                + " avg ttfb=" + (requestCount == 0 ? 0 : totalFirstByte / requestCount) + "ms"
+                + " bytes=" + totalBytes;
+    }
+}
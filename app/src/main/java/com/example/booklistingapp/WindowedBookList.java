@@ -0,0 +1,315 @@
+package com.example.booklistingapp;
+
+import android.util.Log;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+//Book list that only keeps the chunks around the viewport in memory, the rest live in a file until scrolled back to
+public class WindowedBookList extends AbstractList<Book> {
+    private static final String TAG = "WindowedBookList";
+    static final int CHUNK_SIZE = 40;
+    // Chunks kept in memory on each side of the visible ones
+    static final int WINDOW_CHUNKS = 2;
+    // A chunk of CHUNK_SIZE books is far below this, a longer one in saved data means the data is corrupt
+    private static final int MAX_CHUNK_BYTES = 1024 * 1024;
+
+    // Replaced by the restored list's store when adopt() takes over its chunks
+    private File storeFile;
+    private RandomAccessFile store;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private int size;
+
+    private static class Chunk {
+        ArrayList<Book> books = new ArrayList<>(CHUNK_SIZE);
+        int count;
+        // Where the chunk was written in the store, -1 until it is released for the first time
+        long offset = -1;
+        int length;
+    }
+
+    public WindowedBookList(File storeFile) {
+        this.storeFile = storeFile;
+    }
+
+    @Override
+    public Book get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return load(chunks.get(index / CHUNK_SIZE)).get(index % CHUNK_SIZE);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    //Only appending is supported
+    @Override
+    public void add(int index, Book book) {
+        if (index != size) {
+            throw new UnsupportedOperationException("Books can only be appended");
+        }
+        Chunk last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (last == null || last.count == CHUNK_SIZE) {
+            last = new Chunk();
+            chunks.add(last);
+        }
+        load(last).add(book);
+        last.count++;
+        size++;
+        modCount++;
+    }
+
+    //Only the last book (the progress row) can be removed
+    @Override
+    public Book remove(int index) {
+        if (index != size - 1) {
+            throw new UnsupportedOperationException("Only the last book can be removed");
+        }
+        Chunk last = chunks.get(chunks.size() - 1);
+        Book book = load(last).remove(last.count - 1);
+        last.count--;
+        if (last.count == 0) {
+            chunks.remove(chunks.size() - 1);
+        }
+        size--;
+        modCount++;
+        return book;
+    }
+
+    @Override
+    public void clear() {
+        chunks.clear();
+        size = 0;
+        modCount++;
+        closeStore();
+        storeFile.delete();
+    }
+
+    //Releases every full chunk further than WINDOW_CHUNKS away from the visible range
+    public void setViewport(int firstVisible, int lastVisible) {
+        int firstWindowChunk = Math.max(0, firstVisible) / CHUNK_SIZE - WINDOW_CHUNKS;
+        int lastWindowChunk = Math.max(0, lastVisible) / CHUNK_SIZE + WINDOW_CHUNKS;
+        for (int i = 0; i < chunks.size(); i++) {
+            if (i < firstWindowChunk || i > lastWindowChunk) {
+                release(chunks.get(i));
+            }
+        }
+    }
+
+    //For a filtered view: the visible rows are the list positions positions[firstVisible..lastVisible], which can be
+    //far apart. Releases every full chunk further than WINDOW_CHUNKS away from all of them.
+    public void setViewport(int[] positions, int firstVisible, int lastVisible) {
+        boolean[] keep = new boolean[chunks.size()];
+        for (int row = Math.max(0, firstVisible); row <= lastVisible && row < positions.length; row++) {
+            int chunk = positions[row] / CHUNK_SIZE;
+            for (int i = Math.max(0, chunk - WINDOW_CHUNKS); i <= chunk + WINDOW_CHUNKS && i < keep.length; i++) {
+                keep[i] = true;
+            }
+        }
+        for (int i = 0; i < chunks.size(); i++) {
+            if (!keep[i]) {
+                release(chunks.get(i));
+            }
+        }
+    }
+
+    //Chunks currently held as Book objects
+    public int getLoadedChunkCount() {
+        int loaded = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.books != null) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    //Saves the books for readFrom, see Snapshot
+    public void writeTo(OutputStream out) throws IOException {
+        snapshot().writeTo(out);
+    }
+
+    //The chunks as they are now, for writing them out on another thread while the list goes on changing
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    //Chunks already in the store are copied as they were written, so released ones are not read back into Book
+    //objects. They are read through the store's channel, which leaves the list's file pointer alone and fails
+    //the write if the list is cleared meanwhile.
+    public static class Snapshot {
+        private final FileChannel store;
+        private final List<ArrayList<Book>> books = new ArrayList<>();
+        private final long[] offsets;
+        private final int[] lengths;
+
+        private Snapshot(WindowedBookList list) {
+            store = list.store != null ? list.store.getChannel() : null;
+            offsets = new long[list.chunks.size()];
+            lengths = new int[list.chunks.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                Chunk chunk = list.chunks.get(i);
+                offsets[i] = chunk.offset;
+                lengths[i] = chunk.length;
+                books.add(chunk.offset != -1 ? null : new ArrayList<>(chunk.books));
+            }
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            DataOutputStream data = new DataOutputStream(out);
+            for (int i = 0; i < offsets.length; i++) {
+                byte[] encoded;
+                if (offsets[i] != -1) {
+                    ByteBuffer buffer = ByteBuffer.allocate(lengths[i]);
+                    while (buffer.hasRemaining()) {
+                        if (store.read(buffer, offsets[i] + buffer.position()) == -1) {
+                            throw new EOFException("Chunk past the end of the store");
+                        }
+                    }
+                    encoded = buffer.array();
+                } else {
+                    encoded = BookCodec.encode(books.get(i));
+                }
+                data.writeInt(encoded.length);
+                data.write(encoded);
+            }
+            data.flush();
+        }
+    }
+
+    //Appends the books saved by writeTo, chunk by chunk, and indexes them as they come. Each chunk is decoded once
+    //to check it, then full chunks go to the store as they were saved and only the last one is kept as Book objects.
+    //Can be called off the main thread while no other thread uses the list yet, see adopt.
+    public void readFrom(InputStream in, BookIndex index) throws IOException {
+        if (size % CHUNK_SIZE != 0) {
+            throw new IllegalStateException("Saved chunks can't follow a partly filled one");
+        }
+        DataInputStream data = new DataInputStream(in);
+        boolean shortChunkRead = false;
+        while (true) {
+            int length;
+            try {
+                length = data.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+            if (length < 0 || length > MAX_CHUNK_BYTES) {
+                throw new IOException("Chunk of " + length + " bytes");
+            }
+            if (shortChunkRead) {
+                throw new IOException("Chunk after a partly filled one");
+            }
+            byte[] encoded = new byte[length];
+            data.readFully(encoded);
+            ArrayList<Book> books = BookCodec.decode(encoded);
+            if (books.size() > CHUNK_SIZE) {
+                throw new IOException("Chunk of " + books.size() + " books");
+            }
+            index.addAll(books);
+            if (books.size() < CHUNK_SIZE) {
+                shortChunkRead = true;
+                addAll(books);
+                continue;
+            }
+            Chunk chunk = new Chunk();
+            chunk.count = CHUNK_SIZE;
+            writeToStore(chunk, encoded);
+            chunk.books = null;
+            chunks.add(chunk);
+            size += CHUNK_SIZE;
+            modCount++;
+        }
+    }
+
+    //Takes over the books of a list filled by readFrom on another thread, with its store. This list must be empty.
+    public void adopt(WindowedBookList restored) {
+        if (size != 0) {
+            throw new IllegalStateException("Only an empty list can adopt books");
+        }
+        closeStore();
+        storeFile.delete();
+        storeFile = restored.storeFile;
+        store = restored.store;
+        chunks.clear();
+        chunks.addAll(restored.chunks);
+        size = restored.size;
+        modCount++;
+        restored.store = null;
+        restored.chunks.clear();
+        restored.size = 0;
+    }
+
+    private void release(Chunk chunk) {
+        //the last chunk still grows and may hold the progress row, it always stays in memory
+        if (chunk.books == null || chunk.count < CHUNK_SIZE || chunk.books.contains(null)) {
+            return;
+        }
+        if (chunk.offset == -1) {
+            try {
+                writeToStore(chunk, BookCodec.encode(chunk.books));
+            } catch (IOException e) {
+                Log.e(TAG, "release: could not write the chunk, keeping it in memory");
+                return;
+            }
+        }
+        chunk.books = null;
+    }
+
+    private void writeToStore(Chunk chunk, byte[] data) throws IOException {
+        RandomAccessFile store = openStore();
+        long offset = store.length();
+        store.seek(offset);
+        store.write(data);
+        chunk.offset = offset;
+        chunk.length = data.length;
+    }
+
+    private ArrayList<Book> load(Chunk chunk) {
+        if (chunk.books != null) {
+            return chunk.books;
+        }
+        try {
+            byte[] data = new byte[chunk.length];
+            RandomAccessFile store = openStore();
+            store.seek(chunk.offset);
+            store.readFully(data);
+            chunk.books = BookCodec.decode(data);
+        } catch (IOException e) {
+            throw new IllegalStateException("Released books could not be read back", e);
+        }
+        return chunk.books;
+    }
+
+    private RandomAccessFile openStore() throws IOException {
+        if (store == null) {
+            store = new RandomAccessFile(storeFile, "rw");
+            store.setLength(0);
+        }
+        return store;
+    }
+
+    private void closeStore() {
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                Log.e(TAG, "closeStore: could not close the store");
+            }
+            store = null;
+        }
+    }
+}
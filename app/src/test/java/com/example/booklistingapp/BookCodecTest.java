@@ -0,0 +1,88 @@
+package com.example.booklistingapp;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BookCodecTest {
+    @Test
+    public void roundTrip_keepsEveryField() throws Exception {
+        int date = BookDate.parse("1965-03-07");
+        List<Book> books = new ArrayList<>();
+        books.add(new Book("zyTCAlFPjgYC", "The Google Story", Arrays.asList("David A. Vise", "Mark Malseed"),
+                "Ünïcode description", date, 207, "http://books.google.com/thumb"));
+        books.add(new Book(null, "Untitled", null, "", BookDate.NONE, Book.INT_FIELD_NOT_PROVIDED, ""));
+
+        List<Book> decoded = BookCodec.decode(BookCodec.encode(books));
+
+        assertEquals(2, decoded.size());
+        assertTrue(decoded.get(0).hasSameContents(books.get(0)));
+        assertTrue(decoded.get(1).hasSameContents(books.get(1)));
+        assertEquals("zyTCAlFPjgYC", decoded.get(0).getId());
+        assertNull(decoded.get(1).getId());
+    }
+
+    @Test
+    public void encode_skipsProgressRow() throws Exception {
+        List<Book> books = new ArrayList<>();
+        books.add(new Book("a", "A", null, "", BookDate.NONE, 10, ""));
+        books.add(null);
+
+        assertEquals(1, BookCodec.decode(BookCodec.encode(books)).size());
+    }
+
+    @Test
+    public void encode_internsRepeatedAuthors() {
+        List<Book> once = new ArrayList<>();
+        List<Book> twice = new ArrayList<>();
+        once.add(new Book("a", "A", Arrays.asList("A very long author name"), "", BookDate.NONE, 10, ""));
+        twice.addAll(once);
+        twice.add(new Book("b", "B", Arrays.asList("A very long author name"), "", BookDate.NONE, 10, ""));
+
+        int secondBookSize = BookCodec.encode(twice).length - BookCodec.encode(once).length;
+        assertTrue(secondBookSize < "A very long author name".length());
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void decode_rejectsForeignData() throws Exception {
+        BookCodec.decode(new byte[]{1, 2, 3, 4});
+    }
+
+    //Cut anywhere, the list fails to decode with an IOException and nothing else
+    @Test
+    public void decode_rejectsTruncatedData() {
+        List<Book> books = new ArrayList<>();
+        books.add(new Book("a", "A", Arrays.asList("Author"), "Description", BookDate.parse("2001"), 10, "http://a"));
+        books.add(new Book("b", "B", Arrays.asList("Author", "Other"), "", BookDate.NONE, 20, ""));
+        byte[] data = BookCodec.encode(books);
+
+        for (int length = 0; length < data.length; length++) {
+            try {
+                BookCodec.decode(Arrays.copyOf(data, length));
+                fail("decoded " + length + " of " + data.length + " bytes");
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_rejectsCountsLargerThanTheData() throws Exception {
+        //magic, version, no authors, then a book count of Integer.MAX_VALUE
+        BookCodec.decode(new byte[]{0x42, 0x4B, 2, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07});
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_rejectsUnknownAuthors() throws Exception {
+        List<Book> books = new ArrayList<>();
+        books.add(new Book("a", "A", Arrays.asList("Author"), "", BookDate.NONE, Book.INT_FIELD_NOT_PROVIDED, ""));
+        byte[] data = BookCodec.encode(books);
+        //the author reference is the last byte
+        data[data.length - 1] = 5;
+        BookCodec.decode(data);
+    }
+}
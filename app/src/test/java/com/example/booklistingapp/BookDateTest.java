@@ -0,0 +1,49 @@
+package com.example.booklistingapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BookDateTest {
+
+    @Test
+    public void parse_keepsThePrecisionGiven() {
+        int full = BookDate.parse("2004-05-10");
+        assertEquals(2004, BookDate.getYear(full));
+        assertEquals(5, BookDate.getMonth(full));
+        assertEquals(10, BookDate.getDay(full));
+
+        int yearMonth = BookDate.parse("2004-05");
+        assertEquals(5, BookDate.getMonth(yearMonth));
+        assertEquals(0, BookDate.getDay(yearMonth));
+
+        int year = BookDate.parse("2004");
+        assertEquals(2004, BookDate.getYear(year));
+        assertEquals(0, BookDate.getMonth(year));
+    }
+
+    @Test
+    public void parse_rejectsMalformedDates() {
+        assertEquals(BookDate.NONE, BookDate.parse(null));
+        assertEquals(BookDate.NONE, BookDate.parse(""));
+        assertEquals(BookDate.NONE, BookDate.parse("2004-13"));
+        assertEquals(BookDate.NONE, BookDate.parse("2004-05-32"));
+        assertEquals(BookDate.NONE, BookDate.parse("2004/05/10"));
+        assertEquals(BookDate.NONE, BookDate.parse("20o4"));
+        assertEquals(BookDate.NONE, BookDate.parse("0000"));
+    }
+
+    @Test
+    public void format_showsOnlyKnownFields() {
+        assertEquals("10/05/2004", BookDate.format(BookDate.parse("2004-05-10")));
+        assertEquals("05/2004", BookDate.format(BookDate.parse("2004-05")));
+        assertEquals("2004", BookDate.format(BookDate.parse("2004")));
+    }
+
+    @Test
+    public void packedDates_sortChronologically() {
+        assertTrue(BookDate.parse("2004") < BookDate.parse("2004-01"));
+        assertTrue(BookDate.parse("2004-01-31") < BookDate.parse("2004-02"));
+        assertTrue(BookDate.parse("2003-12-31") < BookDate.parse("2004"));
+    }
+}
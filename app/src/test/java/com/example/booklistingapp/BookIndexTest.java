@@ -0,0 +1,129 @@
+package com.example.booklistingapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BookIndexTest {
+
+    private static Book book(int i, int pageCount, int date, String... authors) {
+        return new Book("id" + i, "Title " + i, Arrays.asList(authors), "", date, pageCount, "");
+    }
+
+    private static BookIndex.Filter sortedBy(BookIndex.Sort sort) {
+        return new BookIndex.Filter.Builder().sort(sort).build();
+    }
+
+    @Test
+    public void sortByPages_putsBooksWithoutACountLast() {
+        BookIndex index = new BookIndex();
+        index.addAll(Arrays.asList(
+                book(0, 300, BookDate.NONE, "A"),
+                book(1, Book.INT_FIELD_NOT_PROVIDED, BookDate.NONE, "A"),
+                book(2, 120, BookDate.NONE, "A"),
+                book(3, 300, BookDate.NONE, "A")));
+
+        assertArrayEquals(new int[]{2, 0, 3, 1}, index.apply(sortedBy(BookIndex.Sort.FEWEST_PAGES)));
+        //equal counts keep the order they were loaded in
+        assertArrayEquals(new int[]{0, 3, 2, 1}, index.apply(sortedBy(BookIndex.Sort.MOST_PAGES)));
+    }
+
+    @Test
+    public void sortByDate_comparesPartialDatesByYearFirst() {
+        BookIndex index = new BookIndex();
+        index.addAll(Arrays.asList(
+                book(0, 100, BookDate.of(2004, 5, 10), "A"),
+                book(1, 100, BookDate.of(2004, 0, 0), "A"),
+                book(2, 100, BookDate.NONE, "A"),
+                book(3, 100, BookDate.of(1999, 12, 31), "A")));
+
+        assertArrayEquals(new int[]{0, 1, 3, 2}, index.apply(sortedBy(BookIndex.Sort.NEWEST)));
+        assertArrayEquals(new int[]{3, 1, 0, 2}, index.apply(sortedBy(BookIndex.Sort.OLDEST)));
+    }
+
+    @Test
+    public void pagesAddedLater_areMergedIntoTheSortOrder() {
+        Random random = new Random(42);
+        BookIndex index = new BookIndex();
+        List<Book> books = new ArrayList<>();
+        for (int page = 0; page < 30; page++) {
+            List<Book> loaded = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                int row = books.size() + loaded.size();
+                int pageCount = random.nextInt(10) == 0 ? Book.INT_FIELD_NOT_PROVIDED : random.nextInt(900);
+                loaded.add(book(row, pageCount, BookDate.of(1950 + random.nextInt(70), 1, 1), "A"));
+            }
+            books.addAll(loaded);
+            index.addAll(loaded);
+        }
+
+        final List<Book> expected = new ArrayList<>(books);
+        Collections.sort(expected, new Comparator<Book>() {
+            @Override
+            public int compare(Book a, Book b) {
+                int pagesA = a.getPageCount() == Book.INT_FIELD_NOT_PROVIDED ? Integer.MAX_VALUE : a.getPageCount();
+                int pagesB = b.getPageCount() == Book.INT_FIELD_NOT_PROVIDED ? Integer.MAX_VALUE : b.getPageCount();
+                return pagesA < pagesB ? -1 : (pagesA == pagesB ? 0 : 1);
+            }
+        });
+        int[] rows = index.apply(sortedBy(BookIndex.Sort.FEWEST_PAGES));
+        assertEquals(books.size(), rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            assertSame(expected.get(i), books.get(rows[i]));
+        }
+    }
+
+    @Test
+    public void ranges_areInclusiveAndSkipMissingValues() {
+        BookIndex index = new BookIndex();
+        index.addAll(Arrays.asList(
+                book(0, 199, BookDate.of(2009, 0, 0), "A"),
+                book(1, 200, BookDate.of(2010, 3, 0), "A"),
+                book(2, Book.INT_FIELD_NOT_PROVIDED, BookDate.of(2005, 0, 0), "A"),
+                book(3, 500, BookDate.NONE, "A"),
+                book(4, 501, BookDate.of(2000, 1, 1), "A")));
+
+        assertArrayEquals(new int[]{1, 3}, index.apply(new BookIndex.Filter.Builder().pages(200, 500).build()));
+        assertArrayEquals(new int[]{0, 2, 4},
+                index.apply(new BookIndex.Filter.Builder().years(2000, 2009).build()));
+        assertArrayEquals(new int[]{4, 0},
+                index.apply(new BookIndex.Filter.Builder()
+                        .sort(BookIndex.Sort.OLDEST)
+                        .years(BookIndex.Filter.ANY, 2009)
+                        .pages(BookIndex.Filter.ANY, 600)
+                        .build()));
+    }
+
+    @Test
+    public void authorFilter_matchesAnyAuthorIgnoringCase() {
+        BookIndex index = new BookIndex();
+        index.addAll(Arrays.asList(
+                book(0, 100, BookDate.NONE, "Terry Pratchett", "Neil Gaiman"),
+                book(1, 100, BookDate.NONE, "Neil Gaiman"),
+                book(2, 100, BookDate.NONE, "Terry Pratchett")));
+
+        assertArrayEquals(new int[]{0, 1}, index.apply(new BookIndex.Filter.Builder().author("neil gaiman").build()));
+        assertEquals(0, index.apply(new BookIndex.Filter.Builder().author("Nobody").build()).length);
+    }
+
+    @Test
+    public void progressRow_isSkippedSoRowsStayListPositions() {
+        BookIndex index = new BookIndex();
+        index.addAll(Arrays.asList(book(0, 300, BookDate.NONE, "A"), null));
+        assertEquals(1, index.size());
+
+        //the progress row is removed before the next page is appended at its position
+        index.addAll(Arrays.asList(book(1, 100, BookDate.NONE, "A")));
+        assertArrayEquals(new int[]{1, 0}, index.apply(sortedBy(BookIndex.Sort.FEWEST_PAGES)));
+
+        index.clear();
+        assertEquals(0, index.apply(BookIndex.Filter.NONE).length);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.booklistingapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+    private static final long OPEN_DURATION = 30 * 1000;
+
+    private static class FakeClock implements CircuitBreaker.Clock {
+        long now = 1000;
+
+        @Override
+        public long now() {
+            return now;
+        }
+    }
+
+    private final FakeClock clock = new FakeClock();
+
+    @Test
+    public void repeatedFailures_openTheCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker(3, OPEN_DURATION, clock);
+        breaker.onFailure();
+        breaker.onFailure();
+        assertTrue(breaker.allowRequest());
+
+        breaker.onFailure();
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void success_resetsTheFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker(3, OPEN_DURATION, clock);
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertFalse(breaker.isOpen());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void rateLimited_opensForRetryAfter() {
+        CircuitBreaker breaker = new CircuitBreaker(3, OPEN_DURATION, clock);
+        breaker.onRateLimited(5 * 1000);
+
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+        assertEquals(5 * 1000, breaker.getOpenRemaining());
+        clock.now += 5 * 1000;
+        assertFalse(breaker.isOpen());
+        assertEquals(0, breaker.getOpenRemaining());
+    }
+
+    @Test
+    public void rateLimitedWithoutRetryAfter_countsAsAFailure() {
+        CircuitBreaker breaker = new CircuitBreaker(3, OPEN_DURATION, clock);
+        breaker.onRateLimited(0);
+        assertFalse(breaker.isOpen());
+        assertTrue(breaker.allowRequest());
+
+        breaker.onRateLimited(0);
+        breaker.onRateLimited(0);
+        assertTrue(breaker.isOpen());
+        assertEquals(OPEN_DURATION, breaker.getOpenRemaining());
+    }
+
+    @Test
+    public void openDuration_thenOneTrialGoesThrough() {
+        CircuitBreaker breaker = new CircuitBreaker(1, OPEN_DURATION, clock);
+        breaker.onFailure();
+        clock.now += OPEN_DURATION - 1;
+        assertFalse(breaker.allowRequest());
+
+        clock.now += 1;
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+        breaker.onSuccess();
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void failedTrial_opensAgain() {
+        CircuitBreaker breaker = new CircuitBreaker(1, OPEN_DURATION, clock);
+        breaker.onFailure();
+        clock.now += OPEN_DURATION;
+        assertTrue(breaker.allowRequest());
+
+        breaker.onFailure();
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void inconclusiveTrial_letsTheNextRequestTry() {
+        CircuitBreaker breaker = new CircuitBreaker(1, OPEN_DURATION, clock);
+        breaker.onFailure();
+        clock.now += OPEN_DURATION;
+        assertTrue(breaker.allowRequest());
+
+        //cancelled by a newer search
+        breaker.onInconclusive();
+        assertTrue(breaker.allowRequest());
+        breaker.onSuccess();
+        assertFalse(breaker.isOpen());
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.booklistingapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @Test
+    public void histogram_percentilesFallInTheRightBucket() {
+        Metrics.Histogram histogram = new Metrics.Histogram("test");
+        for (int i = 0; i < 90; i++) {
+            histogram.recordMicros(100);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.recordMillis(50);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(128, histogram.getPercentile(50));
+        assertEquals(128, histogram.getPercentile(90));
+        assertEquals(50000, histogram.getPercentile(99));
+        assertEquals(50000, histogram.getMaxMicros());
+    }
+
+    @Test
+    public void histogram_emptyReportsZero() {
+        Metrics.Histogram histogram = new Metrics.Histogram("test");
+
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0, histogram.getMeanMicros());
+    }
+
+    @Test
+    public void cacheHitRate_isAPercentage() {
+        Metrics.reset();
+        Metrics.CACHE_HITS.add(3);
+        Metrics.CACHE_MISSES.increment();
+
+        assertEquals(75, Metrics.getCacheHitRate());
+    }
+}
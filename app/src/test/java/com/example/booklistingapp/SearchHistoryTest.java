@@ -0,0 +1,51 @@
+package com.example.booklistingapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SearchHistoryTest {
+
+    @Test
+    public void addRecent_putsTheQueryFirstAndDropsTheOldest() {
+        List<String> recent = new ArrayList<>(Arrays.asList("b", "c", "d"));
+
+        assertTrue(SearchHistory.addRecent(recent, "a", 3));
+        assertEquals(Arrays.asList("a", "b", "c"), recent);
+
+        assertTrue(SearchHistory.addRecent(recent, "c", 3));
+        assertEquals(Arrays.asList("c", "a", "b"), recent);
+    }
+
+    @Test
+    public void addRecent_replacesSearchesTypedOnTheWay() {
+        List<String> recent = new ArrayList<>();
+        SearchHistory.addRecent(recent, "tolkien", 5);
+        SearchHistory.addRecent(recent, "har", 5);
+        SearchHistory.addRecent(recent, "harry", 5);
+        SearchHistory.addRecent(recent, "harry potter", 5);
+
+        assertEquals(Arrays.asList("harry potter", "tolkien"), recent);
+    }
+
+    @Test
+    public void addRecent_ignoresRepeatsAndEmptyQueries() {
+        List<String> recent = new ArrayList<>(Arrays.asList("a", "b"));
+
+        assertFalse(SearchHistory.addRecent(recent, "a", 5));
+        assertFalse(SearchHistory.addRecent(recent, "", 5));
+        assertEquals(Arrays.asList("a", "b"), recent);
+    }
+
+    @Test
+    public void merge_putsPinnedFirstWithoutDuplicates() {
+        List<String> queries = SearchHistory.merge(Arrays.asList("p1", "r2"), Arrays.asList("r1", "r2", "r3"), 4);
+
+        assertEquals(Arrays.asList("p1", "r2", "r1", "r3"), queries);
+        assertEquals(Arrays.asList("p1"), SearchHistory.merge(Arrays.asList("p1", "p2"), Arrays.asList("r1"), 1));
+    }
+}
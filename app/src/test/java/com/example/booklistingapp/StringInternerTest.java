@@ -0,0 +1,30 @@
+package com.example.booklistingapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StringInternerTest {
+    @Test
+    public void intern_returnsTheFirstInstance() {
+        StringInterner interner = new StringInterner();
+        String first = new String("Author");
+
+        assertSame(first, interner.intern(first));
+        assertSame(first, interner.intern(new String("Author")));
+    }
+
+    @Test
+    public void intern_letsUnreferencedValuesGo() throws Exception {
+        StringInterner interner = new StringInterner();
+        for (int i = 0; i < 1000; i++) {
+            interner.intern(new String("Author " + i));
+        }
+
+        for (int i = 0; i < 20 && interner.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(0, interner.size());
+    }
+}
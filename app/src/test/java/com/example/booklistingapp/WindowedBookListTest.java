@@ -0,0 +1,172 @@
+package com.example.booklistingapp;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class WindowedBookListTest {
+
+    private static Book book(int i) {
+        return new Book("id" + i, "Title " + i, Arrays.asList("Author " + (i % 7)),
+                "A description long enough to matter on the heap " + i, BookDate.NONE, i, "http://books.google.com/" + i);
+    }
+
+    private static WindowedBookList newList() throws Exception {
+        File file = File.createTempFile("window", ".bin");
+        file.deleteOnExit();
+        return new WindowedBookList(file);
+    }
+
+    @Test
+    public void longScroll_keepsLoadedChunksBounded() throws Exception {
+        WindowedBookList books = newList();
+        int maxLoaded = 0;
+        for (int i = 0; i < 5000; i++) {
+            books.add(book(i));
+            if (i % 10 == 9) {
+                books.setViewport(i - 5, i);
+                maxLoaded = Math.max(maxLoaded, books.getLoadedChunkCount());
+            }
+        }
+
+        assertEquals(5000, books.size());
+        assertTrue("loaded chunks: " + maxLoaded, maxLoaded <= 2 * WindowedBookList.WINDOW_CHUNKS + 2);
+    }
+
+    @Test
+    public void scrollingBack_readsReleasedBooksAgain() throws Exception {
+        WindowedBookList books = newList();
+        for (int i = 0; i < 1000; i++) {
+            books.add(book(i));
+        }
+        books.setViewport(990, 999);
+        assertTrue(books.getLoadedChunkCount() < 1000 / WindowedBookList.CHUNK_SIZE);
+
+        books.setViewport(0, 5);
+        for (int i = 0; i < 1000; i += 37) {
+            assertTrue(books.get(i).hasSameContents(book(i)));
+            assertEquals("id" + i, books.get(i).getId());
+        }
+    }
+
+    @Test
+    public void writeTo_savesReleasedChunksWithoutLoadingThem() throws Exception {
+        WindowedBookList books = newList();
+        for (int i = 0; i < 1000; i++) {
+            books.add(book(i));
+        }
+        books.add(null);
+        books.setViewport(990, 999);
+        int loaded = books.getLoadedChunkCount();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        books.writeTo(out);
+        assertEquals(loaded, books.getLoadedChunkCount());
+
+        WindowedBookList restored = newList();
+        BookIndex index = new BookIndex();
+        restored.readFrom(new ByteArrayInputStream(out.toByteArray()), index);
+        assertEquals(1000, restored.size());
+        assertEquals(1000, index.size());
+        //full chunks go to the store as they were saved, none is read back until it is asked for
+        assertEquals(0, restored.getLoadedChunkCount());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(restored.get(i).hasSameContents(book(i)));
+        }
+    }
+
+    @Test
+    public void snapshot_isWrittenAsTheListWasWhenItWasTaken() throws Exception {
+        WindowedBookList books = newList();
+        for (int i = 0; i < 500; i++) {
+            books.add(book(i));
+        }
+        books.setViewport(490, 499);
+        WindowedBookList.Snapshot snapshot = books.snapshot();
+        for (int i = 500; i < 600; i++) {
+            books.add(book(i));
+        }
+        books.setViewport(590, 599);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.writeTo(out);
+        WindowedBookList restored = newList();
+        restored.readFrom(new ByteArrayInputStream(out.toByteArray()), new BookIndex());
+        assertEquals(500, restored.size());
+        assertEquals("id499", restored.get(499).getId());
+    }
+
+    @Test
+    public void adopt_takesOverTheRestoredBooks() throws Exception {
+        WindowedBookList books = newList();
+        for (int i = 0; i < 300; i++) {
+            books.add(book(i));
+        }
+        books.setViewport(290, 299);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        books.writeTo(out);
+        WindowedBookList restored = newList();
+        restored.readFrom(new ByteArrayInputStream(out.toByteArray()), new BookIndex());
+
+        WindowedBookList adopting = newList();
+        adopting.adopt(restored);
+        assertEquals(0, restored.size());
+        assertEquals(300, adopting.size());
+        adopting.add(book(300));
+        for (int i = 0; i <= 300; i += 7) {
+            assertEquals("id" + i, adopting.get(i).getId());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void readFrom_rejectsTruncatedData() throws Exception {
+        WindowedBookList books = newList();
+        for (int i = 0; i < 100; i++) {
+            books.add(book(i));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        books.writeTo(out);
+
+        newList().readFrom(new ByteArrayInputStream(Arrays.copyOf(out.toByteArray(), out.size() - 10)), new BookIndex());
+    }
+
+    @Test
+    public void filteredViewport_keepsTheChunksOfTheVisiblePositions() throws Exception {
+        WindowedBookList books = newList();
+        for (int i = 0; i < 1000; i++) {
+            books.add(book(i));
+        }
+        //a filter showing one book of every chunk, rows 5 to 7 visible
+        int[] positions = new int[1000 / WindowedBookList.CHUNK_SIZE];
+        for (int row = 0; row < positions.length; row++) {
+            positions[row] = row * WindowedBookList.CHUNK_SIZE;
+        }
+        books.setViewport(positions, 5, 7);
+
+        assertEquals(3 + 2 * WindowedBookList.WINDOW_CHUNKS, books.getLoadedChunkCount());
+        for (int row = 0; row < positions.length; row++) {
+            assertEquals("id" + positions[row], books.get(positions[row]).getId());
+        }
+    }
+
+    @Test
+    public void progressRow_canBeAddedAndRemoved() throws Exception {
+        WindowedBookList books = newList();
+        for (int i = 0; i < 80; i++) {
+            books.add(book(i));
+        }
+        books.add(null);
+        books.setViewport(500, 510);
+        assertNull(books.get(80));
+
+        books.remove(80);
+        assertEquals(80, books.size());
+        assertEquals("id79", books.get(79).getId());
+    }
+}